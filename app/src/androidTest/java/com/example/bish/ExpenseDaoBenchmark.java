@@ -0,0 +1,261 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import com.example.bish.core.DailySeries;
+import com.example.bish.core.ExpenseColumns;
+import com.example.bish.core.LocalDays;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * ExpenseDao / DailyTotalDao 热点查询的微基准，分别在 1k / 100k / 1M 行上运行。
+ * 结果由 benchmark 库写入 build/outputs/connected_android_test_additional_output 下的 JSON。
+ */
+@RunWith(Parameterized.class)
+public class ExpenseDaoBenchmark {
+    
+    // 基准数据都写在这个 userId 下
+    static final int USER_ID = 1;
+    
+    private static final String[] CATEGORIES = {"餐饮", "交通", "购物", "娱乐", "住房", "医疗", "教育", "其他"};
+    
+    @Parameterized.Parameters(name = "rows={0}")
+    public static Collection<Object[]> sizes() {
+        return Arrays.asList(new Object[][]{{1_000}, {100_000}, {1_000_000}});
+    }
+    
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    
+    private final int rows;
+    private AppDatabase db;
+    
+    public ExpenseDaoBenchmark(int rows) {
+        this.rows = rows;
+    }
+    
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = openPopulated(context, rows);
+    }
+    
+    // 每种规模一个独立数据库文件，已按规模填充过则直接复用
+    static AppDatabase openPopulated(Context context, int rows) {
+        AppDatabase db = AppDatabase.create(context, "bench-" + rows + ".db");
+        if (db.dailyTotalDao().getSummary(USER_ID).expenses == rows) return db;
+        
+        db.clearAllTables();
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        long span = 3L * 365 * 24 * 3600 * 1000; // 三年历史
+        int[] categoryIds = new int[CATEGORIES.length];
+        for (int k = 0; k < CATEGORIES.length; k++) {
+            categoryIds[k] = db.categoryCache().idFor(USER_ID, CATEGORIES[k]);
+        }
+        List<Expense> batch = new ArrayList<>(ExpenseImporter.BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            Expense e = new Expense();
+            e.userId = USER_ID;
+            e.amountCents = 100 + random.nextInt(50_000);
+            e.categoryId = categoryIds[random.nextInt(CATEGORIES.length)];
+            e.date = now - (long) (random.nextDouble() * span);
+            e.note = random.nextInt(4) == 0 ? "备注 " + i : "";
+            batch.add(e);
+            if (batch.size() == ExpenseImporter.BATCH_SIZE) {
+                db.expenseDao().insertAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) db.expenseDao().insertAll(batch);
+        return db;
+    }
+    
+    @Test
+    public void categoryTotals() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().getCategoryTotals(USER_ID);
+        }
+    }
+    
+    @Test
+    public void categoryTotalsLast30Days() {
+        DateRange range = DateRange.lastDays(30);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().getCategoryTotalsBetween(USER_ID, range.start, range.end);
+        }
+    }
+    
+    @Test
+    public void firstPage() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().getFirstPage(USER_ID, ExpensePager.PAGE_SIZE);
+        }
+    }
+    
+    // 从表中间位置继续翻页，验证 keyset 分页的耗时与深度无关
+    @Test
+    public void deepPage() {
+        List<Expense> first = db.expenseDao().getFirstPage(USER_ID, 1);
+        long middle = first.get(0).date - 18L * 30 * 24 * 3600 * 1000;
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().getPageBefore(USER_ID, middle, Integer.MAX_VALUE, ExpensePager.PAGE_SIZE);
+        }
+    }
+    
+    // 全文搜索命中少量行：耗时只与命中数有关，不随表大小增长
+    @Test
+    public void searchRareNote() {
+        String match = ExpensePager.matchQuery(String.valueOf(rows / 2));
+        List<Integer> none = Collections.emptyList();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().searchFirstPage(USER_ID, match, none, ExpensePager.PAGE_SIZE);
+        }
+    }
+    
+    // 按类别搜索，命中约 1/8 的行，是全文搜索的最坏情况
+    @Test
+    public void searchCategory() {
+        String match = ExpensePager.matchQuery("餐饮");
+        db.categoryCache().ensureLoaded();
+        List<Integer> ids = db.categoryCache().matching(USER_ID, "餐饮");
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().searchFirstPage(USER_ID, match, ids, ExpensePager.PAGE_SIZE);
+        }
+    }
+    
+    // 预测输入：汇总行 + 截至今天连续 30 个自然日（空白日补 0）
+    @Test
+    public void dailyWindowForPrediction() {
+        long today = LocalDays.systemDefault().today();
+        long firstDay = today - ForecastEngine.WINDOW + 1;
+        double[] window = new double[ForecastEngine.WINDOW];
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.dailyTotalDao().getSummary(USER_ID);
+            db.dailyTotalDao().getSeries(USER_ID, firstDay, today).window(today, window);
+        }
+    }
+    
+    // 明细按 epoch day 归到自然日（列已载入内存，只测归并本身），对比下面按日期字符串归并的旧做法
+    @Test
+    public void dailySeriesBucketEpochDay() {
+        DateRange all = DateRange.all();
+        ExpenseColumns columns = db.expenseDao().loadColumns(new ExpenseColumns(rows), USER_ID, all.start, all.end);
+        LocalDays localDays = LocalDays.systemDefault();
+        long firstDay = localDays.epochDay(columns.dates[0]);
+        long lastDay = localDays.epochDay(columns.dates[columns.size - 1]);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            DailySeries.bucket(columns.dates, columns.amountCents, columns.size, localDays, firstDay, lastDay)
+                    .window(lastDay, new double[ForecastEngine.WINDOW]);
+        }
+    }
+    
+    @Test
+    public void dailySeriesBucketString() {
+        DateRange all = DateRange.all();
+        ExpenseColumns columns = db.expenseDao().loadColumns(new ExpenseColumns(rows), USER_ID, all.start, all.end);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Map<String, Long> byDay = new TreeMap<>();
+            for (int i = 0; i < columns.size; i++) {
+                byDay.merge(sdf.format(new Date(columns.dates[i])), columns.amountCents[i], Long::sum);
+            }
+        }
+    }
+    
+    // 列式全表扫描到复用数组，再按类别合计；与上面的 SQL 聚合对比，并看分配次数是否与行数无关
+    @Test
+    public void columnarScanCategoryTotals() {
+        DateRange all = DateRange.all();
+        ExpenseColumns columns = new ExpenseColumns(rows);
+        long[] totals = null;
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            totals = db.expenseDao().loadColumns(columns, USER_ID, all.start, all.end).totalsByCategory(totals);
+        }
+    }
+    
+    // 最近 30 天按类别拆成日序列（分类预测的输入）
+    @Test
+    public void columnarCategoryDailySeries() {
+        LocalDays localDays = LocalDays.systemDefault();
+        long firstDay = localDays.today() - ForecastEngine.WINDOW + 1;
+        long start = localDays.startOfDay(firstDay);
+        ExpenseColumns columns = new ExpenseColumns();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.expenseDao().loadColumns(columns, USER_ID, start, Long.MAX_VALUE)
+                    .dailyByCategory(localDays, firstDay, ForecastEngine.WINDOW);
+        }
+    }
+    
+    // 导出全表扫描（只遍历不写文件）：按 keyset 每块 10k 行，对比下面单个游标扫到底的旧做法
+    @Test
+    public void exportChunkedScan() {
+        DateRange all = DateRange.all();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            long lastDate = all.start;
+            int lastId = 0;
+            int chunk;
+            do {
+                chunk = 0;
+                try (Cursor c = db.expenseDao().exportAfter(USER_ID, lastDate, lastId, all.end, 10_000)) {
+                    while (c.moveToNext()) {
+                        lastId = c.getInt(0);
+                        lastDate = c.getLong(3);
+                        chunk++;
+                    }
+                }
+            } while (chunk == 10_000);
+        }
+    }
+    
+    @Test
+    public void exportSingleCursorScan() {
+        DateRange all = DateRange.all();
+        SimpleSQLiteQuery query = new SimpleSQLiteQuery(ExpenseDao.EXPORT +
+                "WHERE expenses.userId = ? AND date BETWEEN ? AND ? ORDER BY date, expenses.id",
+                new Object[]{USER_ID, all.start, all.end});
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            try (Cursor c = db.query(query)) {
+                while (c.moveToNext()) {
+                    c.getLong(3);
+                }
+            }
+        }
+    }
+}
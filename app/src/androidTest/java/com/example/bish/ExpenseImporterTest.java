@@ -0,0 +1,92 @@
+package com.example.bish;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+// 导入时的金额正负号约定：收入、退款不能被当成支出写入
+@RunWith(AndroidJUnit4.class)
+public class ExpenseImporterTest {
+    
+    // 每个用例在 setUp 中重新打开数据库并清空，类别字典随 AppDatabase 实例新建，不会残留已删除的 id
+    private static final String DB_NAME = "import-test.db";
+    private static final int USER_ID = 1;
+    
+    // 负数为支出的银行流水，夹杂工资和退款两笔收入
+    private static final String SIGNED_STATEMENT = "交易时间,交易金额,交易类型,摘要\n"
+            + "2024-05-01 12:00:00,-25.80,餐饮,午饭\n"
+            + "2024-05-01 18:00:00,\"8,000.00\",工资,五月工资\n"
+            + "2024-05-02 09:30:00,-3.50,交通,地铁\n"
+            + "2024-05-03 10:00:00,12.00,退款,退货\n";
+    
+    private Context context;
+    private AppDatabase db;
+    
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = AppDatabase.create(context, DB_NAME);
+        db.clearAllTables();
+    }
+    
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(DB_NAME);
+    }
+    
+    @Test
+    public void mixedSignStatement_importsOnlySpending() throws IOException {
+        ExpenseImporter.Result result = importCsv(SIGNED_STATEMENT, ExpenseImporter.SignConvention.AUTO);
+        
+        assertEquals(2, result.imported);
+        assertEquals(2, result.skipped);
+        DailySummary summary = db.dailyTotalDao().getSummary(USER_ID);
+        assertEquals(2, summary.expenses);
+        assertEquals(2580 + 350, summary.totalCents);
+    }
+    
+    // 本应用导出的格式：金额为正；个别负数行（退款）跳过，不取绝对值
+    private static final String POSITIVE_EXPORT = "date,amount,category,note\n"
+            + "2024-05-01 12:00:00,25.80,餐饮,午饭\n"
+            + "2024-05-02 09:30:00,-3.50,交通,退票\n"
+            + "2024-05-03 19:00:00,0.00,其他,赠品\n"
+            + "2024-05-04 08:00:00,12.00,交通,打车\n";
+    
+    // 正数占多数，AUTO 按正数为支出处理，退款行跳过
+    @Test
+    public void autoConvention_positiveMajority_skipsRefund() throws IOException {
+        ExpenseImporter.Result result = importCsv(POSITIVE_EXPORT, ExpenseImporter.SignConvention.AUTO);
+        
+        assertEquals(2, result.imported);
+        assertEquals(2, result.skipped);
+        assertEquals(2580 + 1200, db.dailyTotalDao().getSummary(USER_ID).totalCents);
+    }
+    
+    @Test
+    public void positiveConvention_skipsNegativeRows() throws IOException {
+        ExpenseImporter.Result result = importCsv(POSITIVE_EXPORT, ExpenseImporter.SignConvention.POSITIVE_EXPENSES);
+        
+        assertEquals(2, result.imported);
+        assertEquals(2, result.skipped);
+        assertEquals(2580 + 1200, db.dailyTotalDao().getSummary(USER_ID).totalCents);
+    }
+    
+    private ExpenseImporter.Result importCsv(String csv, ExpenseImporter.SignConvention signs) throws IOException {
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        return new ExpenseImporter(db.expenseDao(), db.categoryCache(), USER_ID, signs)
+                .importCsv(new ByteArrayInputStream(bytes), bytes.length, null);
+    }
+}
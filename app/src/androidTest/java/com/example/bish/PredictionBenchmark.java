@@ -0,0 +1,84 @@
+package com.example.bish;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+// 一次完整的 predictExpense 流程：读日汇总 -> 滚动推理 -> 生成分析（模型已预热）
+@RunWith(AndroidJUnit4.class)
+public class PredictionBenchmark {
+    
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    
+    private ExpensePredictor predictor;
+    private ForecastEngine engine;
+    
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AppDatabase db = ExpenseDaoBenchmark.openPopulated(context, 100_000);
+        engine = ForecastEngine.getInstance(context);
+        engine.warmUp();
+        predictor = new ExpensePredictor(db, engine, ExpenseDaoBenchmark.USER_ID);
+    }
+    
+    // 每次都重新滚动 30 天预测
+    @Test
+    public void predictCycle() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            predictor.invalidate();
+            predictor.predict(null);
+        }
+    }
+    
+    // 数据未变化时命中缓存
+    @Test
+    public void predictCycleCached() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            predictor.predict(null);
+        }
+    }
+    
+    // 20 个类别一起批量滚动 7 天，对比下面的逐条推理
+    @Test
+    public void categoryForecastBatched() throws Exception {
+        double[][] series = syntheticSeries(20);
+        float[][] out = new float[series.length][ExpensePredictor.WEEK];
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            engine.forecastBatch(series, out);
+        }
+    }
+    
+    @Test
+    public void categoryForecastPerCategory() throws Exception {
+        double[][] series = syntheticSeries(20);
+        float[][] out = new float[series.length][ExpensePredictor.WEEK];
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int k = 0; k < series.length; k++) engine.forecast(series[k], out[k]);
+        }
+    }
+    
+    private static double[][] syntheticSeries(int categories) {
+        Random random = new Random(7);
+        double[][] series = new double[categories][ForecastEngine.WINDOW];
+        for (double[] s : series) {
+            for (int i = 0; i < s.length; i++) s[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(20_000) / 100.0;
+        }
+        return series;
+    }
+}
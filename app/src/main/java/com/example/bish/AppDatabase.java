@@ -1,30 +1,395 @@
 package com.example.bish;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
+import android.database.Cursor;
 
-@Database(entities = {Expense.class, User.class}, version = 2, exportSchema = false)
+@Database(entities = {Expense.class, User.class, DailyTotal.class, ForecastState.class, MonthlyTotal.class, ExpenseFts.class,
+        Category.class, PredictionResult.class}, version = 12, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract ExpenseDao expenseDao();
     public abstract UserDao userDao();
+    public abstract DailyTotalDao dailyTotalDao();
+    public abstract ForecastStateDao forecastStateDao();
+    public abstract MonthlyTotalDao monthlyTotalDao();
+    public abstract CategoryDao categoryDao();
+    public abstract PredictionResultDao predictionResultDao();
 
     private static volatile AppDatabase INSTANCE;
+    private volatile CategoryCache categoryCache;
+    private volatile ExpenseRepository expenseRepository;
+
+    // 毫秒时间戳 -> 本地时区 epoch day，与 LocalDate.toEpochDay() 一致
+    private static String epochDay(String millis) {
+        return "(CAST(strftime('%s', " + millis + " / 1000, 'unixepoch', 'localtime') AS INTEGER) / 86400)";
+    }
+
+    private static String addToDay(String row) {
+        String key = "userId = " + row + ".userId AND day = " + epochDay(row + ".date");
+        return "INSERT OR IGNORE INTO daily_totals (userId, day, totalCents, count) VALUES ("
+             + row + ".userId, " + epochDay(row + ".date") + ", 0, 0); "
+             + "UPDATE daily_totals SET totalCents = totalCents + " + row + ".amountCents, count = count + 1 WHERE " + key + "; ";
+    }
+
+    private static String removeFromDay(String row) {
+        String key = "userId = " + row + ".userId AND day = " + epochDay(row + ".date");
+        return "UPDATE daily_totals SET totalCents = totalCents - " + row + ".amountCents, count = count - 1 WHERE " + key + "; "
+             + "DELETE FROM daily_totals WHERE " + key + " AND count <= 0; ";
+    }
+
+    // daily_totals 与 expenses 在同一事务内同步更新
+    static void createDailyTotalTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS daily_totals_after_insert AFTER INSERT ON expenses BEGIN "
+                + addToDay("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS daily_totals_after_delete AFTER DELETE ON expenses BEGIN "
+                + removeFromDay("OLD") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS daily_totals_after_update AFTER UPDATE OF userId, amountCents, date ON expenses BEGIN "
+                + removeFromDay("OLD") + addToDay("NEW") + "END");
+    }
+
+    // 毫秒时间戳 -> 本地时区年月，如 202405，与 YearMonth 一致
+    private static String yearMonth(String millis) {
+        return "CAST(strftime('%Y%m', " + millis + " / 1000, 'unixepoch', 'localtime') AS INTEGER)";
+    }
+
+    private static String addToMonth(String row) {
+        String key = "userId = " + row + ".userId AND month = " + yearMonth(row + ".date")
+                + " AND categoryId = " + row + ".categoryId";
+        return "INSERT OR IGNORE INTO monthly_totals (userId, month, categoryId, totalCents, count) VALUES ("
+             + row + ".userId, " + yearMonth(row + ".date") + ", " + row + ".categoryId, 0, 0); "
+             + "UPDATE monthly_totals SET totalCents = totalCents + " + row + ".amountCents, count = count + 1 WHERE " + key + "; ";
+    }
+
+    private static String removeFromMonth(String row) {
+        String key = "userId = " + row + ".userId AND month = " + yearMonth(row + ".date")
+                + " AND categoryId = " + row + ".categoryId";
+        return "UPDATE monthly_totals SET totalCents = totalCents - " + row + ".amountCents, count = count - 1 WHERE " + key + "; "
+             + "DELETE FROM monthly_totals WHERE " + key + " AND count <= 0; ";
+    }
+
+    static void createMonthlyTotalTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS monthly_totals_after_insert AFTER INSERT ON expenses BEGIN "
+                + addToMonth("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS monthly_totals_after_delete AFTER DELETE ON expenses BEGIN "
+                + removeFromMonth("OLD") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS monthly_totals_after_update AFTER UPDATE OF userId, amountCents, date, categoryId ON expenses BEGIN "
+                + removeFromMonth("OLD") + addToMonth("NEW") + "END");
+    }
+
+    // 已折叠进 Holt-Winters 状态的日期有改动时标记重建；改动今天（未折叠）的记录只是一次主键查找
+    private static String markStale(String row) {
+        return "UPDATE forecast_state SET stale = 1 WHERE userId = " + row + ".userId AND lastDay >= "
+             + epochDay(row + ".date") + "; ";
+    }
+
+    static void createForecastStateTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS forecast_state_after_insert AFTER INSERT ON expenses BEGIN "
+                + markStale("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS forecast_state_after_delete AFTER DELETE ON expenses BEGIN "
+                + markStale("OLD") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS forecast_state_after_update AFTER UPDATE OF userId, amountCents, date ON expenses BEGIN "
+                + markStale("OLD") + markStale("NEW") + "END");
+    }
+
+    // 影响预测输入的改动（金额、日期、类别）使该用户的数据版本加一，只改备注不算
+    private static String bumpVersion(String row) {
+        return "INSERT OR IGNORE INTO prediction_results (userId) VALUES (" + row + ".userId); "
+             + "UPDATE prediction_results SET dataVersion = dataVersion + 1 WHERE userId = " + row + ".userId; ";
+    }
+
+    static void createPredictionResultTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS prediction_results_after_insert AFTER INSERT ON expenses BEGIN "
+                + bumpVersion("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS prediction_results_after_delete AFTER DELETE ON expenses BEGIN "
+                + bumpVersion("OLD") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS prediction_results_after_update AFTER UPDATE OF userId, amountCents, date, categoryId ON expenses BEGIN "
+                + bumpVersion("OLD") + bumpVersion("NEW") + "END");
+    }
+
+    // 触发器定义变化时先删除旧的再重建
+    static void dropDailyTotalTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS daily_totals_after_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS daily_totals_after_delete");
+        db.execSQL("DROP TRIGGER IF EXISTS daily_totals_after_update");
+    }
+
+    // v3：为 expenses 增加 date 索引和 (category, amount) 覆盖索引
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_date` ON `expenses` (`date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_category_amount` ON `expenses` (`category`, `amount`)");
+        }
+    };
+
+    // v4：新增 daily_totals 日汇总表并用现有数据回填；触发器引用当前列名，统一在 v9 迁移里创建
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `daily_totals` (`day` INTEGER NOT NULL, `total` REAL NOT NULL, "
+                    + "`count` INTEGER NOT NULL, PRIMARY KEY(`day`))");
+            db.execSQL("INSERT INTO daily_totals (day, total, count) SELECT " + epochDay("date")
+                    + " AS d, SUM(amount), COUNT(*) FROM expenses GROUP BY d");
+        }
+    };
+
+    // v5：expenses 增加 userId，索引改为以 userId 开头；daily_totals 改为按 (userId, day) 汇总
+    // 旧数据没有归属，统一划给最早注册的用户（单用户设备上即为唯一用户）
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            dropDailyTotalTriggers(db);
+            db.execSQL("ALTER TABLE `expenses` ADD COLUMN `userId` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE expenses SET userId = COALESCE((SELECT MIN(id) FROM users), 0)");
+            db.execSQL("DROP INDEX IF EXISTS `index_expenses_date`");
+            db.execSQL("DROP INDEX IF EXISTS `index_expenses_category_amount`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_date` ON `expenses` (`userId`, `date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_category_amount` "
+                    + "ON `expenses` (`userId`, `category`, `amount`)");
+
+            db.execSQL("DROP TABLE IF EXISTS `daily_totals`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `daily_totals` (`userId` INTEGER NOT NULL, `day` INTEGER NOT NULL, "
+                    + "`total` REAL NOT NULL, `count` INTEGER NOT NULL, PRIMARY KEY(`userId`, `day`))");
+            db.execSQL("INSERT INTO daily_totals (userId, day, total, count) SELECT userId, " + epochDay("date")
+                    + " AS d, SUM(amount), COUNT(*) FROM expenses GROUP BY userId, d");
+        }
+    };
+
+    // v6：users 改为 username 唯一索引 + 加盐哈希，明文密码在迁移时转成 PBKDF2 哈希
+    // 重名账号只保留最早注册的一个，其余账号的记录并入保留的账号
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE expenses SET userId = (SELECT MIN(k.id) FROM users k JOIN users u ON k.username = u.username "
+                    + "WHERE u.id = expenses.userId) "
+                    + "WHERE userId NOT IN (SELECT MIN(id) FROM users GROUP BY username) "
+                    + "AND userId IN (SELECT id FROM users)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `users_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`username` TEXT, `passwordHash` TEXT, `salt` TEXT, `iterations` INTEGER NOT NULL, "
+                    + "`createTime` INTEGER NOT NULL)");
+            try (Cursor c = db.query("SELECT id, username, password, createTime FROM users "
+                    + "WHERE id IN (SELECT MIN(id) FROM users GROUP BY username)")) {
+                while (c.moveToNext()) {
+                    User user = new User();
+                    PasswordHasher.setPassword(user, c.isNull(2) ? "" : c.getString(2));
+                    db.execSQL("INSERT INTO users_new (id, username, passwordHash, salt, iterations, createTime) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)", new Object[]{c.getInt(0), c.getString(1),
+                            user.passwordHash, user.salt, user.iterations, c.getLong(3)});
+                }
+            }
+            db.execSQL("DROP TABLE users");
+            db.execSQL("ALTER TABLE users_new RENAME TO users");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_users_username` ON `users` (`username`)");
+        }
+    };
+
+    // v7：新增 forecast_state 保存每个用户的 Holt-Winters 状态，首次使用时从 daily_totals 构建
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `forecast_state` (`userId` INTEGER NOT NULL, `lastDay` INTEGER NOT NULL, "
+                    + "`days` INTEGER NOT NULL, `level` REAL NOT NULL, `trend` REAL NOT NULL, `season` BLOB, "
+                    + "`stale` INTEGER NOT NULL, PRIMARY KEY(`userId`))");
+        }
+    };
+
+    // v8：新增 monthly_totals 按月按类别汇总，图表切换时间范围时整月部分不再扫描明细
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `monthly_totals` (`userId` INTEGER NOT NULL, `month` INTEGER NOT NULL, "
+                    + "`category` TEXT NOT NULL, `total` REAL NOT NULL, `count` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `month`, `category`))");
+            db.execSQL("INSERT INTO monthly_totals (userId, month, category, total, count) SELECT userId, "
+                    + yearMonth("date") + " AS m, IFNULL(category, '') AS c, SUM(amount), COUNT(*) "
+                    + "FROM expenses GROUP BY userId, m, c");
+        }
+    };
+
+    // v9：金额改为以分为单位的整数，汇总表随之改为整数累加，不再有浮点误差
+    // SQLite 不能修改列类型，重建 expenses 后用明细重新回填两张汇总表；旧的 Holt-Winters 状态按元累加，标记重建
+    // 各版本的触发器都挂在旧 expenses 上，随表删除，最后按当前列名统一重建
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expenses_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`userId` INTEGER NOT NULL DEFAULT 0, `amountCents` INTEGER NOT NULL, `category` TEXT, "
+                    + "`date` INTEGER NOT NULL, `note` TEXT)");
+            db.execSQL("INSERT INTO expenses_new (id, userId, amountCents, category, date, note) "
+                    + "SELECT id, userId, CAST(ROUND(amount * 100) AS INTEGER), category, date, note FROM expenses");
+            db.execSQL("DROP TABLE expenses");
+            db.execSQL("ALTER TABLE expenses_new RENAME TO expenses");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_date` ON `expenses` (`userId`, `date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_category_amountCents` "
+                    + "ON `expenses` (`userId`, `category`, `amountCents`)");
+
+            db.execSQL("DROP TABLE IF EXISTS `daily_totals`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `daily_totals` (`userId` INTEGER NOT NULL, `day` INTEGER NOT NULL, "
+                    + "`totalCents` INTEGER NOT NULL, `count` INTEGER NOT NULL, PRIMARY KEY(`userId`, `day`))");
+            db.execSQL("INSERT INTO daily_totals (userId, day, totalCents, count) SELECT userId, " + epochDay("date")
+                    + " AS d, SUM(amountCents), COUNT(*) FROM expenses GROUP BY userId, d");
+
+            db.execSQL("DROP TABLE IF EXISTS `monthly_totals`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `monthly_totals` (`userId` INTEGER NOT NULL, `month` INTEGER NOT NULL, "
+                    + "`category` TEXT NOT NULL, `totalCents` INTEGER NOT NULL, `count` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `month`, `category`))");
+            db.execSQL("INSERT INTO monthly_totals (userId, month, category, totalCents, count) SELECT userId, "
+                    + yearMonth("date") + " AS m, IFNULL(category, '') AS c, SUM(amountCents), COUNT(*) "
+                    + "FROM expenses GROUP BY userId, m, c");
+
+            db.execSQL("UPDATE forecast_state SET stale = 1");
+            createDailyTotalTriggers(db);
+            createMonthlyTotalTriggers(db);
+            createForecastStateTriggers(db);
+        }
+    };
+
+    // v10：新增 expenses_fts 全文索引（备注、类别），建表后从 expenses 一次性重建
+    // 同步触发器由 Room 在迁移结束后统一创建，这里不需要手写
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `expenses_fts` USING FTS4(`note` TEXT, `category` TEXT, "
+                    + "tokenize=icu, content=`expenses`)");
+            db.execSQL("INSERT INTO expenses_fts(expenses_fts) VALUES ('rebuild')");
+        }
+    };
+
+    // v11：类别拆成 categories 字典表，expenses 和 monthly_totals 改存 categoryId
+    // 旧的类别文本在 Java 里规范化（与 CategoryCache.normalize 一致）后去重，写进临时映射表再整表重建 expenses
+    // expenses_fts 去掉 category 列（类别改在内存字典中匹配），随 expenses 一起重建
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `categories` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`userId` INTEGER NOT NULL, `name` TEXT NOT NULL COLLATE NOCASE)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_categories_userId_name` ON `categories` (`userId`, `name`)");
+            db.execSQL("CREATE TEMP TABLE category_map (userId INTEGER NOT NULL, raw TEXT NOT NULL, categoryId INTEGER NOT NULL, "
+                    + "PRIMARY KEY(userId, raw))");
+            try (Cursor c = db.query("SELECT DISTINCT userId, IFNULL(category, '') FROM expenses")) {
+                while (c.moveToNext()) {
+                    int userId = c.getInt(0);
+                    String raw = c.getString(1);
+                    String name = CategoryCache.normalize(raw);
+                    db.execSQL("INSERT OR IGNORE INTO categories (userId, name) VALUES (?, ?)", new Object[]{userId, name});
+                    db.execSQL("INSERT INTO category_map (userId, raw, categoryId) SELECT ?, ?, id FROM categories "
+                            + "WHERE userId = ? AND name = ?", new Object[]{userId, raw, userId, name});
+                }
+            }
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `expenses_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`userId` INTEGER NOT NULL DEFAULT 0, `amountCents` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, "
+                    + "`date` INTEGER NOT NULL, `note` TEXT)");
+            db.execSQL("INSERT INTO expenses_new (id, userId, amountCents, categoryId, date, note) "
+                    + "SELECT e.id, e.userId, e.amountCents, m.categoryId, e.date, e.note FROM expenses e "
+                    + "JOIN category_map m ON m.userId = e.userId AND m.raw = IFNULL(e.category, '')");
+            db.execSQL("DROP TABLE category_map");
+            db.execSQL("DROP TABLE IF EXISTS `expenses_fts`");
+            db.execSQL("DROP TABLE expenses");
+            db.execSQL("ALTER TABLE expenses_new RENAME TO expenses");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_date` ON `expenses` (`userId`, `date`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_expenses_userId_categoryId_amountCents` "
+                    + "ON `expenses` (`userId`, `categoryId`, `amountCents`)");
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `expenses_fts` USING FTS4(`note` TEXT, "
+                    + "tokenize=icu, content=`expenses`)");
+            db.execSQL("INSERT INTO expenses_fts(expenses_fts) VALUES ('rebuild')");
+
+            db.execSQL("DROP TABLE IF EXISTS `monthly_totals`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `monthly_totals` (`userId` INTEGER NOT NULL, `month` INTEGER NOT NULL, "
+                    + "`categoryId` INTEGER NOT NULL, `totalCents` INTEGER NOT NULL, `count` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `month`, `categoryId`))");
+            db.execSQL("INSERT INTO monthly_totals (userId, month, categoryId, totalCents, count) SELECT userId, "
+                    + yearMonth("date") + " AS m, categoryId, SUM(amountCents), COUNT(*) "
+                    + "FROM expenses GROUP BY userId, m, categoryId");
+
+            createDailyTotalTriggers(db);
+            createMonthlyTotalTriggers(db);
+            createForecastStateTriggers(db);
+        }
+    };
+
+    // v12：新增 prediction_results 持久化预测结果，触发器维护每个用户的数据版本；旧库没有结果，首次打开时计算
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `prediction_results` (`userId` INTEGER NOT NULL, "
+                    + "`dataVersion` INTEGER NOT NULL DEFAULT 0, `resultVersion` INTEGER NOT NULL DEFAULT -1, "
+                    + "`computedDay` INTEGER NOT NULL DEFAULT 0, `prediction` TEXT, `outlook` TEXT, `analysis` TEXT, "
+                    + "`forecast` BLOB, PRIMARY KEY(`userId`))");
+            createPredictionResultTriggers(db);
+        }
+    };
+
+    // 每个数据库文件一份类别字典，基准测试用的独立库不会混用 id
+    public CategoryCache categoryCache() {
+        if (categoryCache == null) {
+            synchronized (this) {
+                if (categoryCache == null) {
+                    categoryCache = new CategoryCache(categoryDao());
+                }
+            }
+        }
+        return categoryCache;
+    }
+
+    // 明细写入和聚合查询的共享入口，缓存与数据库文件一一对应
+    public ExpenseRepository expenseRepository() {
+        if (expenseRepository == null) {
+            synchronized (this) {
+                if (expenseRepository == null) {
+                    expenseRepository = new ExpenseRepository(this);
+                }
+            }
+        }
+        return expenseRepository;
+    }
 
     public static AppDatabase getDatabase(Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
-                            context.getApplicationContext(),
-                            AppDatabase.class,
-                            "budget.db"
-                    ).fallbackToDestructiveMigration()
-                     .build();
+                    INSTANCE = create(context, "budget.db");
                 }
             }
         }
         return INSTANCE;
     }
-}
\ No newline at end of file
+
+    // 按应用配置打开指定文件名的数据库；基准测试用独立文件，避免影响真实数据
+    static AppDatabase create(Context context, String name) {
+        return Room.databaseBuilder(
+                context.getApplicationContext(),
+                AppDatabase.class,
+                name
+        ).setQueryExecutor(AppExecutors.getInstance().dbRead())
+         // 显式开启 WAL：批量导入写入时读查询不被阻塞
+         .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+         .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8,
+                 MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12)
+         .addCallback(new Callback() {
+             @Override
+             public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                 createDailyTotalTriggers(db);
+                 createMonthlyTotalTriggers(db);
+                 createForecastStateTriggers(db);
+                 createPredictionResultTriggers(db);
+             }
+
+             @Override
+             public void onDestructiveMigration(@NonNull SupportSQLiteDatabase db) {
+                 createDailyTotalTriggers(db);
+                 createMonthlyTotalTriggers(db);
+                 createForecastStateTriggers(db);
+                 createPredictionResultTriggers(db);
+             }
+         })
+         .fallbackToDestructiveMigration()
+         .build();
+    }
+}
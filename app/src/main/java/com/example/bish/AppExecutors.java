@@ -0,0 +1,226 @@
+package com.example.bish;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 应用级后台线程池：读库、写库、计算、密码哈希四条通道，替代各处的 new Thread / 独立 Executor
+public class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static volatile AppExecutors INSTANCE;
+
+    // WAL 模式下读可以并发，写只能串行
+    private final ExecutorService dbRead = newPool("db-read", 2);
+    private final ExecutorService dbWrite = newPool("db-write", 1);
+    private final ExecutorService compute = newPool("compute", 1);
+    // PBKDF2 单独一条通道：不排在模型预热 / 推理之后，也不占用写库通道
+    private final ExecutorService auth = newPool("auth", 1);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 尚未完成的 load 请求，相同 key 的请求合并为一次执行
+    private final Map<String, Request<?>> inFlight = new HashMap<>();
+    // 每提交一次写操作加一，用于判断运行中的读请求是否已过期
+    private int writeSeq;
+
+    public static AppExecutors getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AppExecutors.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AppExecutors();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private static ExecutorService newPool(String name, int threads) {
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            r.run();
+        }, name + "-" + index.incrementAndGet()));
+    }
+
+    public ExecutorService dbRead() {
+        return dbRead;
+    }
+
+    public ExecutorService dbWrite() {
+        return dbWrite;
+    }
+
+    public ExecutorService compute() {
+        return compute;
+    }
+
+    // 在读库通道执行，结果在主线程交给 owner 仍存活时的 callback；key 为 null 时不合并
+    @MainThread
+    public <T> void read(LifecycleOwner owner, String key, Callable<T> task, Callback<T> callback) {
+        load(owner, key, dbRead, task, callback);
+    }
+
+    // 在计算通道执行，规则同 read
+    @MainThread
+    public <T> void compute(LifecycleOwner owner, String key, Callable<T> task, Callback<T> callback) {
+        load(owner, key, compute, task, callback);
+    }
+
+    // 在密码哈希通道执行，规则同 read
+    @MainThread
+    public <T> void auth(LifecycleOwner owner, String key, Callable<T> task, Callback<T> callback) {
+        load(owner, key, auth, task, callback);
+    }
+
+    // 在写库通道执行，写操作不合并；callback 可为 null
+    @MainThread
+    public <T> void write(LifecycleOwner owner, Callable<T> task, Callback<T> callback) {
+        synchronized (this) {
+            writeSeq++;
+        }
+        Request<T> request = new Request<>(null, task);
+        if (callback != null) {
+            request.subscribe(owner, callback);
+        }
+        request.future = dbWrite.submit(request);
+    }
+
+    // 相同 key 的请求若还在排队，或已开始但期间没有新的写操作，则直接复用其结果
+    private <T> void load(LifecycleOwner owner, String key, ExecutorService lane, Callable<T> task, Callback<T> callback) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+        if (key == null) {
+            Request<T> request = new Request<>(null, task);
+            request.subscribe(owner, callback);
+            request.future = lane.submit(request);
+            return;
+        }
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            Request<T> existing = (Request<T>) inFlight.get(key);
+            if (existing != null && (!existing.started || existing.startSeq == writeSeq)) {
+                existing.subscribe(owner, callback);
+                return;
+            }
+            Request<T> request = new Request<>(key, task);
+            request.subscribe(owner, callback);
+            inFlight.put(key, request);
+            request.future = lane.submit(request);
+        }
+    }
+
+    private final class Request<T> implements Runnable {
+        final String key;
+        final Callable<T> task;
+        final List<Subscriber<T>> subscribers = new ArrayList<>();
+        Future<?> future;
+        boolean started;
+        int startSeq;
+
+        Request(String key, Callable<T> task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        @MainThread
+        void subscribe(LifecycleOwner owner, Callback<T> callback) {
+            Subscriber<T> subscriber = new Subscriber<>(this, owner, callback);
+            synchronized (AppExecutors.this) {
+                subscribers.add(subscriber);
+            }
+            owner.getLifecycle().addObserver(subscriber);
+        }
+
+        // 订阅者全部销毁时取消任务
+        void unsubscribe(Subscriber<T> subscriber) {
+            synchronized (AppExecutors.this) {
+                subscribers.remove(subscriber);
+                if (!subscribers.isEmpty() || key == null) return;
+                if (inFlight.get(key) == this) inFlight.remove(key);
+            }
+            if (future != null) future.cancel(true);
+        }
+
+        @Override
+        public void run() {
+            synchronized (AppExecutors.this) {
+                started = true;
+                startSeq = writeSeq;
+            }
+            T result = null;
+            boolean ok = false;
+            try {
+                result = task.call();
+                ok = true;
+            } catch (Exception e) {
+                Log.e(TAG, "后台任务失败: " + key, e);
+            } finally {
+                synchronized (AppExecutors.this) {
+                    if (key != null && inFlight.get(key) == this) inFlight.remove(key);
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) return;
+
+            final T value = result;
+            final boolean success = ok;
+            mainHandler.post(() -> {
+                List<Subscriber<T>> targets;
+                synchronized (AppExecutors.this) {
+                    targets = new ArrayList<>(subscribers);
+                    subscribers.clear();
+                }
+                for (Subscriber<T> s : targets) {
+                    s.deliver(value, success);
+                }
+            });
+        }
+    }
+
+    private static final class Subscriber<T> implements DefaultLifecycleObserver {
+        final AppExecutors.Request<T> request;
+        final LifecycleOwner owner;
+        final Callback<T> callback;
+
+        Subscriber(AppExecutors.Request<T> request, LifecycleOwner owner, Callback<T> callback) {
+            this.request = request;
+            this.owner = owner;
+            this.callback = callback;
+        }
+
+        // 失败时只解除观察，不回调
+        @MainThread
+        void deliver(T value, boolean success) {
+            owner.getLifecycle().removeObserver(this);
+            if (success && owner.getLifecycle().getCurrentState() != Lifecycle.State.DESTROYED) {
+                callback.onResult(value);
+            }
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner source) {
+            source.getLifecycle().removeObserver(this);
+            request.unsubscribe(this);
+        }
+    }
+}
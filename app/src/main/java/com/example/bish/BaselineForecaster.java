@@ -0,0 +1,88 @@
+package com.example.bish;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.bish.core.HoltWinters;
+import com.example.bish.core.Money;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.List;
+
+// 从 forecast_state 取出 Holt-Winters 状态，把上次之后已结束的日期折叠进去再存回
+// 平时每天只折叠一次；只有历史数据被改动（stale）时才从 daily_totals 全量重建
+public class BaselineForecaster {
+    
+    private final AppDatabase db;
+    private final int userId;
+    
+    public BaselineForecaster(AppDatabase db, int userId) {
+        this.db = db;
+        this.userId = userId;
+    }
+    
+    // 返回折叠到昨天为止的模型；今天尚未结束，不参与平滑
+    // 读取、折叠、保存放在一个事务里，避免与触发器置 stale 交错而丢失重建标记
+    @WorkerThread
+    public HoltWinters current() {
+        long t = Metrics.begin("baseline.current");
+        try {
+            return db.runInTransaction(this::catchUp);
+        } finally {
+            Metrics.end("baseline.current", t);
+        }
+    }
+    
+    private HoltWinters catchUp() {
+        long yesterday = LocalDate.now().toEpochDay() - 1;
+        ForecastState state = db.forecastStateDao().get(userId);
+        HoltWinters model = new HoltWinters();
+        long from;
+        if (state == null || state.stale || state.days == 0) {
+            from = Long.MIN_VALUE;
+        } else {
+            restore(state, model);
+            from = state.lastDay + 1;
+        }
+        if (from > yesterday) return model;
+        
+        List<DailyTotal> rows = db.dailyTotalDao().getRange(userId, from, yesterday);
+        for (DailyTotal row : rows) {
+            model.update(row.day, Money.toYuan(row.totalCents));
+        }
+        // 最后一个有支出的日期之后到昨天都按 0 补齐
+        if (!model.isEmpty() && model.getLastDay() < yesterday) {
+            model.update(yesterday, 0);
+        }
+        if (!model.isEmpty()) {
+            db.forecastStateDao().save(snapshot(model));
+        }
+        return model;
+    }
+    
+    private void restore(ForecastState state, HoltWinters model) {
+        double[] season = new double[HoltWinters.PERIOD];
+        if (state.season != null) {
+            ByteBuffer buf = ByteBuffer.wrap(state.season).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < HoltWinters.PERIOD && buf.remaining() >= 8; i++) {
+                season[i] = buf.getDouble();
+            }
+        }
+        model.restore(state.level, state.trend, season, state.lastDay, state.days);
+    }
+    
+    private ForecastState snapshot(HoltWinters model) {
+        ForecastState state = new ForecastState();
+        state.userId = userId;
+        state.lastDay = model.getLastDay();
+        state.days = model.getDays();
+        state.level = model.getLevel();
+        state.trend = model.getTrend();
+        ByteBuffer buf = ByteBuffer.allocate(HoltWinters.PERIOD * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < HoltWinters.PERIOD; i++) buf.putDouble(model.getSeason(i));
+        state.season = buf.array();
+        state.stale = false;
+        return state;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bish;
+
+import android.app.Application;
+import android.util.Log;
+
+public class BishApplication extends Application {
+    
+    private static final String TAG = "BishApplication";
+    
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        
+        // 耗时统计默认关闭，在隐藏调试页中开启后保持
+        Metrics.setEnabled(getSharedPreferences(MetricsActivity.PREFS, MODE_PRIVATE)
+                .getBoolean(MetricsActivity.KEY_METRICS_ENABLED, false));
+        
+        // 后台提前打开 budget.db（建连接、执行迁移、开启 WAL）并载入类别字典，首屏查询时无需再等待
+        // 随后排好预测结果的后台计算
+        AppExecutors.getInstance().dbRead().execute(() -> {
+            try {
+                AppDatabase db = AppDatabase.getDatabase(this);
+                db.getOpenHelper().getWritableDatabase();
+                db.categoryCache().ensureLoaded();
+                PredictionScheduler.install(this, db);
+            } catch (Exception e) {
+                Log.w(TAG, "数据库预打开失败", e);
+            }
+        });
+        
+        // 后台预热预测模型，首次点击预测时无需再加载
+        AppExecutors.getInstance().compute().execute(() -> {
+            try {
+                ForecastEngine.getInstance(this).warmUp();
+            } catch (Exception e) {
+                Log.w(TAG, "模型预热失败", e);
+            }
+        });
+    }
+}
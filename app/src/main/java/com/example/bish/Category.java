@@ -0,0 +1,20 @@
+package com.example.bish;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// 每个用户的类别字典，expenses 只存 categoryId；(userId, name) 唯一且不区分大小写，同名类别不会分裂成两个
+@Entity(tableName = "categories", indices = {@Index(value = {"userId", "name"}, unique = true)})
+public class Category {
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    public int userId;         // 所属用户 users.id
+
+    @NonNull
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
+    public String name = "";   // 规范化后的名称，见 CategoryCache.normalize
+}
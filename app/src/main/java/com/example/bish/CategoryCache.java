@@ -0,0 +1,122 @@
+package com.example.bish;
+
+import androidx.annotation.WorkerThread;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// categories 的内存字典：id -> 名称用数组下标直接取，每个类别只有一个 String 实例
+// 类别只增不改，整表载入一次后只在新增时追加；名称查找可在主线程调用，载入和新增须在后台线程
+public class CategoryCache {
+
+    // 明细没有类别或类别为空白时归入此类
+    public static final String DEFAULT_NAME = "其他";
+
+    private final CategoryDao dao;
+    private String[] names = new String[64];
+    private int[] owners = new int[64];
+    // userId + 名称（只把 ASCII 字母转小写，与 categories.name 的 COLLATE NOCASE 一致）-> id
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile boolean loaded;
+
+    CategoryCache(CategoryDao dao) {
+        this.dao = dao;
+    }
+
+    // 去掉首尾空白、合并连续空白，并做 NFKC 规范化（全角字母数字转半角），“ 餐饮”“餐饮 ”“ＫＦＣ”不再各成一类
+    public static String normalize(String raw) {
+        if (raw == null) return DEFAULT_NAME;
+        String s = Normalizer.normalize(raw, Normalizer.Form.NFKC).trim().replaceAll("\\s+", " ");
+        return s.isEmpty() ? DEFAULT_NAME : s;
+    }
+
+    @WorkerThread
+    public void ensureLoaded() {
+        if (loaded) return;
+        List<Category> all = dao.getAll();
+        synchronized (this) {
+            if (loaded) return;
+            for (Category c : all) put(c.id, c.userId, c.name);
+            loaded = true;
+        }
+    }
+
+    // 不存在时创建；并发创建同名类别时由唯一索引保证只有一个
+    @WorkerThread
+    public int idFor(int userId, String rawName) {
+        ensureLoaded();
+        String name = normalize(rawName);
+        String key = key(userId, name);
+        synchronized (this) {
+            Integer id = ids.get(key);
+            if (id != null) return id;
+        }
+        Category c = new Category();
+        c.userId = userId;
+        c.name = name;
+        long rowId = dao.insertIfAbsent(c);
+        Integer id = rowId != -1 ? Integer.valueOf((int) rowId) : dao.findId(userId, name);
+        if (id == null) throw new IllegalStateException("无法创建类别: " + name);
+        synchronized (this) {
+            Integer existing = ids.get(key);
+            if (existing != null) return existing;
+            put(id, userId, name);
+        }
+        return id;
+    }
+
+    // 未知 id（尚未载入）时返回默认名称
+    public synchronized String name(int id) {
+        String name = id >= 0 && id < names.length ? names[id] : null;
+        return name != null ? name : DEFAULT_NAME;
+    }
+
+    // 名称包含 text（不区分大小写）的类别，用于搜索
+    public synchronized List<Integer> matching(int userId, String text) {
+        List<Integer> result = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) return result;
+        String t = normalize(text).toLowerCase(Locale.ROOT);
+        for (int id = 0; id < names.length; id++) {
+            if (names[id] != null && owners[id] == userId && names[id].toLowerCase(Locale.ROOT).contains(t)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    // 类别选择器的候选项，常用的在前
+    @WorkerThread
+    public List<String> namesByUsage(int userId) {
+        ensureLoaded();
+        List<Category> rows = dao.getByUsage(userId);
+        List<String> result = new ArrayList<>(rows.size());
+        for (Category c : rows) result.add(name(c.id));
+        return result;
+    }
+
+    private void put(int id, int userId, String name) {
+        if (id >= names.length) {
+            int size = Math.max(id + 1, names.length * 2);
+            names = Arrays.copyOf(names, size);
+            owners = Arrays.copyOf(owners, size);
+        }
+        names[id] = name;
+        owners[id] = userId;
+        ids.put(key(userId, name), id);
+    }
+
+    // NOCASE 只折叠 A-Z：“Café”与“CAFÉ”在表中是两行，这里也必须是两个键
+    private static String key(int userId, String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 12).append(userId).append('\u0000');
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            sb.append(ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bish;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface CategoryDao {
+    // 名称已存在时由唯一索引拒绝并返回 -1
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertIfAbsent(Category category);
+
+    // 走 (userId, name) 唯一索引的点查
+    @Query("SELECT id FROM categories WHERE userId = :userId AND name = :name")
+    Integer findId(int userId, String name);
+
+    // 类别数量很少，启动时整表载入内存
+    @Query("SELECT * FROM categories")
+    List<Category> getAll();
+
+    // 类别选择器：按使用次数从多到少，次数来自 monthly_totals，不扫描明细
+    @Query("SELECT categories.* FROM categories LEFT JOIN (SELECT categoryId, SUM(count) AS uses FROM monthly_totals " +
+           "WHERE userId = :userId GROUP BY categoryId) u ON u.categoryId = categories.id " +
+           "WHERE categories.userId = :userId ORDER BY IFNULL(u.uses, 0) DESC, categories.id")
+    List<Category> getByUsage(int userId);
+}
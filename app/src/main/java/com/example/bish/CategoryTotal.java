@@ -0,0 +1,8 @@
+package com.example.bish;
+
+// 按类别聚合的投影结果，只包含图表需要的列；名称由 CategoryCache 查
+public class CategoryTotal {
+    public int categoryId;     // categories.id
+    public long totalCents;    // 该类别总金额（分）
+    public int count;          // 记录条数
+}
@@ -2,6 +2,8 @@ package com.example.bish;
 
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,6 +11,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.util.Pair;
 import androidx.fragment.app.Fragment;
 
 import com.github.mikephil.charting.charts.PieChart;
@@ -16,19 +19,31 @@ import com.github.mikephil.charting.data.PieData;
 import com.github.mikephil.charting.data.PieDataSet;
 import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.formatter.ValueFormatter;
+import com.google.android.material.chip.ChipGroup;
+import com.google.android.material.datepicker.MaterialDatePicker;
 
-import java.text.SimpleDateFormat;
+import com.example.bish.core.Money;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 public class ChartFragment extends Fragment {
     
+    private static final String TAG = "ChartFragment";
+    
     private AppDatabase db;
+    private int userId;
     private PieChart pieChart;
     private TextView tvTotal;
+    private ChipGroup chipRange;
+    private int checkedChip;
+    private DateRange range = DateRange.all();
+    // 入场动画只在第一次有数据时播放，之后切换范围或数据刷新直接重绘
+    private boolean animated;
     
     @Nullable
     @Override
@@ -36,11 +51,16 @@ public class ChartFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_chart, container, false);
         
         db = AppDatabase.getDatabase(getContext());
+        userId = UserSession.getUserId(requireContext());
         pieChart = view.findViewById(R.id.pieChart);
         tvTotal = view.findViewById(R.id.tvTotal);
+        chipRange = view.findViewById(R.id.chipRange);
         
         setupChart();
+        setupRangeChips(view);
         loadChartData();
+        // expenses 变化时按当前范围重新统计
+        TableChangeObserver.observe(db, getViewLifecycleOwner(), this::loadChartData, "expenses");
         
         return view;
     }
@@ -55,7 +75,6 @@ public class ChartFragment extends Fragment {
         pieChart.setTransparentCircleRadius(61f);
         pieChart.setRotationEnabled(true);
         pieChart.setHighlightPerTapEnabled(true);
-        pieChart.animateY(1400);
         
         // 设置图例
         pieChart.getLegend().setEnabled(true);
@@ -63,49 +82,87 @@ public class ChartFragment extends Fragment {
         pieChart.getLegend().setHorizontalAlignment(PieChart.LegendHorizontalAlignment.RIGHT);
     }
     
+    private void setupRangeChips(View view) {
+        checkedChip = R.id.chipAll;
+        view.findViewById(R.id.chipAll).setOnClickListener(v -> selectRange(v.getId(), DateRange.all()));
+        view.findViewById(R.id.chipWeek).setOnClickListener(v -> selectRange(v.getId(), DateRange.thisWeek()));
+        view.findViewById(R.id.chipMonth).setOnClickListener(v -> selectRange(v.getId(), DateRange.thisMonth()));
+        view.findViewById(R.id.chip90Days).setOnClickListener(v -> selectRange(v.getId(), DateRange.lastDays(90)));
+        view.findViewById(R.id.chipCustom).setOnClickListener(v -> showCustomRangePicker());
+    }
+    
+    private void selectRange(int chipId, DateRange newRange) {
+        checkedChip = chipId;
+        range = newRange;
+        loadChartData();
+    }
+    
+    // 选择器返回 UTC 零点的日期，取其日期部分再按本地时区换算；取消时恢复之前选中的范围
+    private void showCustomRangePicker() {
+        MaterialDatePicker<Pair<Long, Long>> picker = MaterialDatePicker.Builder.dateRangePicker()
+                .setTitleText("选择时间范围")
+                .build();
+        picker.addOnPositiveButtonClickListener(selection -> {
+            LocalDate first = Instant.ofEpochMilli(selection.first).atZone(ZoneOffset.UTC).toLocalDate();
+            LocalDate last = Instant.ofEpochMilli(selection.second).atZone(ZoneOffset.UTC).toLocalDate();
+            selectRange(R.id.chipCustom, DateRange.ofDays(first, last, first + " ~ " + last));
+        });
+        picker.addOnNegativeButtonClickListener(v -> chipRange.check(checkedChip));
+        picker.addOnCancelListener(dialog -> chipRange.check(checkedChip));
+        picker.show(getChildFragmentManager(), "chart.range");
+    }
+    
     private void loadChartData() {
-        new Thread(() -> {
-            List<Expense> expenses = db.expenseDao().getAllExpenses();
-            
-            // 按类别聚合
-            Map<String, Float> categoryMap = new HashMap<>();
-            double total = 0;
-            for (Expense e : expenses) {
-                categoryMap.merge(e.category, (float) e.amount, Float::sum);
-                total += e.amount;
-            }
-            
-            if (getActivity() != null) {
-                getActivity().runOnUiThread(() -> {
-                    tvTotal.setText("总支出：¥" + String.format(Locale.getDefault(), "%.2f", total));
-                    
-                    if (categoryMap.isEmpty()) {
-                        pieChart.setNoDataText("暂无数据，请先添加记账记录");
-                        return;
-                    }
-                    
-                    List<PieEntry> entries = new ArrayList<>();
-                    for (Map.Entry<String, Float> entry : categoryMap.entrySet()) {
-                        entries.add(new PieEntry(entry.getValue(), entry.getKey()));
-                    }
-                    
-                    PieDataSet dataSet = new PieDataSet(entries, "支出分类");
-                    dataSet.setColors(getChartColors(categoryMap.size()));
-                    dataSet.setValueTextSize(12f);
-                    dataSet.setValueTextColor(Color.WHITE);
-                    dataSet.setValueFormatter(new ValueFormatter() {
-                        @Override
-                        public String getFormattedValue(float value) {
-                            return String.format(Locale.getDefault(), "¥%.0f", value);
-                        }
-                    });
-                    
-                    PieData pieData = new PieData(dataSet);
-                    pieChart.setData(pieData);
-                    pieChart.invalidate();
-                });
+        // 整月部分来自 monthly_totals，首尾零头走 date 范围查询；聚合结果每个类别一行
+        DateRange current = range;
+        long start = SystemClock.elapsedRealtime();
+        AppExecutors.getInstance().read(getViewLifecycleOwner(), "chart.range:" + current.start + "-" + current.end,
+                () -> db.expenseRepository().rangeTotals(userId, current), totals -> {
+            if (current != range) return;
+            renderChart(totals);
+            Log.d(TAG, current.label + " 统计并绘制 " + (SystemClock.elapsedRealtime() - start) + "ms");
+        });
+    }
+    
+    private void renderChart(List<CategoryTotal> totals) {
+        long totalCents = 0;
+        for (CategoryTotal t : totals) {
+            totalCents += t.totalCents;
+        }
+        String prefix = range.isAll() ? "总支出" : range.label + "支出";
+        tvTotal.setText(prefix + "：¥" + Money.format(totalCents));
+        
+        if (totals.isEmpty()) {
+            pieChart.clear();
+            pieChart.setNoDataText(range.isAll() ? "暂无数据，请先添加记账记录" : "该时间范围内没有记录");
+            return;
+        }
+        
+        CategoryCache categories = db.categoryCache();
+        List<PieEntry> entries = new ArrayList<>(totals.size());
+        for (CategoryTotal t : totals) {
+            entries.add(new PieEntry((float) Money.toYuan(t.totalCents), categories.name(t.categoryId)));
+        }
+        
+        PieDataSet dataSet = new PieDataSet(entries, "支出分类");
+        dataSet.setColors(getChartColors(totals.size()));
+        dataSet.setValueTextSize(12f);
+        dataSet.setValueTextColor(Color.WHITE);
+        dataSet.setValueFormatter(new ValueFormatter() {
+            @Override
+            public String getFormattedValue(float value) {
+                return String.format(Locale.getDefault(), "¥%.0f", value);
             }
-        }).start();
+        });
+        
+        PieData pieData = new PieData(dataSet);
+        pieChart.setData(pieData);
+        if (!animated) {
+            animated = true;
+            pieChart.animateY(1400);
+        } else {
+            pieChart.invalidate();
+        }
     }
     
     private int[] getChartColors(int count) {
@@ -129,10 +186,4 @@ public class ChartFragment extends Fragment {
         }
         return colors;
     }
-    
-    @Override
-    public void onResume() {
-        super.onResume();
-        loadChartData();
-    }
 }
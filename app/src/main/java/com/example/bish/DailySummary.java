@@ -0,0 +1,8 @@
+package com.example.bish;
+
+// daily_totals 的整体统计
+public class DailySummary {
+    public int days;           // 有支出的天数
+    public int expenses;       // 记录总条数
+    public long totalCents;    // 总金额（分）
+}
@@ -0,0 +1,13 @@
+package com.example.bish;
+
+import androidx.room.Entity;
+
+// 按用户、按天汇总的支出，由 expenses 表上的触发器维护，不直接写入
+@Entity(tableName = "daily_totals", primaryKeys = {"userId", "day"})
+public class DailyTotal {
+    public int userId;         // 所属用户 users.id
+    public long day;           // 本地时区的 epoch day（LocalDate.toEpochDay）
+
+    public long totalCents;    // 当天总金额（分）
+    public int count;          // 当天记录条数
+}
@@ -0,0 +1,36 @@
+package com.example.bish;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.example.bish.core.DailySeries;
+
+import java.util.List;
+
+@Dao
+public interface DailyTotalDao {
+    // [fromDay, toDay] 内有支出的日期，按日期升序（主键 (userId, day) 范围扫描）
+    @Query("SELECT * FROM daily_totals WHERE userId = :userId AND day BETWEEN :fromDay AND :toDay ORDER BY day")
+    List<DailyTotal> getRange(int userId, long fromDay, long toDay);
+
+    // [fromDay, toDay] 的连续日序列，空白日为 0
+    default DailySeries getSeries(int userId, long fromDay, long toDay) {
+        List<DailyTotal> rows = getRange(userId, fromDay, toDay);
+        long[] days = new long[rows.size()];
+        long[] cents = new long[rows.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = rows.get(i).day;
+            cents[i] = rows.get(i).totalCents;
+        }
+        return DailySeries.fromDailyTotals(days, cents, days.length, fromDay, toDay);
+    }
+
+    @Query("SELECT COUNT(*) AS days, COALESCE(SUM(count), 0) AS expenses, COALESCE(SUM(totalCents), 0) AS totalCents " +
+           "FROM daily_totals WHERE userId = :userId")
+    DailySummary getSummary(int userId);
+
+    @Query("SELECT COUNT(*) AS days, COALESCE(SUM(count), 0) AS expenses, COALESCE(SUM(totalCents), 0) AS totalCents " +
+           "FROM daily_totals WHERE userId = :userId")
+    LiveData<DailySummary> observeSummary(int userId);
+}
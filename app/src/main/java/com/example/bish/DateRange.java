@@ -0,0 +1,58 @@
+package com.example.bish;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+// 闭区间时间段 [start, end]，毫秒时间戳，按本地时区的自然日切分
+public class DateRange {
+    
+    public final long start;
+    public final long end;
+    public final String label;
+    
+    public DateRange(long start, long end, String label) {
+        this.start = start;
+        this.end = end;
+        this.label = label;
+    }
+    
+    public static DateRange all() {
+        return new DateRange(Long.MIN_VALUE, Long.MAX_VALUE, "全部");
+    }
+    
+    // 本周（周一起）
+    public static DateRange thisWeek() {
+        LocalDate today = LocalDate.now();
+        return ofDays(today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), today, "本周");
+    }
+    
+    public static DateRange thisMonth() {
+        LocalDate today = LocalDate.now();
+        return ofDays(today.withDayOfMonth(1), today, "本月");
+    }
+    
+    public static DateRange thisYear() {
+        LocalDate today = LocalDate.now();
+        return ofDays(today.withDayOfYear(1), today, "今年");
+    }
+    
+    // 含今天在内的最近 n 天
+    public static DateRange lastDays(int n) {
+        LocalDate today = LocalDate.now();
+        return ofDays(today.minusDays(n - 1), today, "最近 " + n + " 天");
+    }
+    
+    // 从 first 当天 00:00 到 last 当天 23:59:59.999
+    public static DateRange ofDays(LocalDate first, LocalDate last, String label) {
+        ZoneId zone = ZoneId.systemDefault();
+        long start = first.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = last.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        return new DateRange(start, end, label);
+    }
+    
+    public boolean isAll() {
+        return start == Long.MIN_VALUE && end == Long.MAX_VALUE;
+    }
+}
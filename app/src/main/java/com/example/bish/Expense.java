@@ -1,15 +1,22 @@
 package com.example.bish;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "expenses")
+// 所有查询都带 userId 条件，索引均以 userId 开头，查询代价只与当前用户的数据量有关
+@Entity(tableName = "expenses",
+        indices = {@Index(value = {"userId", "date"}), @Index(value = {"userId", "categoryId", "amountCents"})})
 public class Expense {
     @PrimaryKey(autoGenerate = true)
     public int id;
 
-    public double amount;      // 金额
-    public String category;    // 类别，如 "餐饮"
+    @ColumnInfo(defaultValue = "0")
+    public int userId;         // 所属用户 users.id
+
+    public long amountCents;   // 金额，单位：分
+    public int categoryId;     // 类别 categories.id，名称见 CategoryCache
     public long date;          // 时间戳（毫秒）
     public String note;        // 备注
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.example.bish;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.bish.core.Money;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+// 记账列表适配器：差异比较在后台线程完成，格式化只在绑定可见行时进行
+public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ViewHolder> {
+    
+    public interface OnItemLongClickListener {
+        void onItemLongClick(Expense expense);
+    }
+    
+    private static final DiffUtil.ItemCallback<Expense> DIFF_CALLBACK = new DiffUtil.ItemCallback<Expense>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Expense oldItem, @NonNull Expense newItem) {
+            return oldItem.id == newItem.id;
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull Expense oldItem, @NonNull Expense newItem) {
+            return oldItem.amountCents == newItem.amountCents
+                    && oldItem.date == newItem.date
+                    && oldItem.categoryId == newItem.categoryId
+                    && Objects.equals(oldItem.note, newItem.note);
+        }
+    };
+    
+    // 只在主线程绑定时使用，复用同一个实例
+    private final SimpleDateFormat sdf = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault());
+    private final Date reusableDate = new Date();
+    private final CategoryCache categories;
+    private OnItemLongClickListener longClickListener;
+    
+    // 类别名称从 categories 取，提交列表前须已在后台线程载入
+    public ExpenseAdapter(CategoryCache categories) {
+        super(DIFF_CALLBACK);
+        this.categories = categories;
+        setHasStableIds(true);
+    }
+    
+    public void setOnItemLongClickListener(OnItemLongClickListener listener) {
+        this.longClickListener = listener;
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+    
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_expense, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION || longClickListener == null) {
+                return false;
+            }
+            longClickListener.onItemLongClick(getItem(position));
+            return true;
+        });
+        return holder;
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Expense e = getItem(position);
+        reusableDate.setTime(e.date);
+        String time = sdf.format(reusableDate);
+        holder.tvLine1.setText(Money.format(e.amountCents) + " 元 | " + categories.name(e.categoryId));
+        holder.tvLine2.setText(e.note == null || e.note.isEmpty() ? time : e.note + " | " + time);
+    }
+    
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvLine1;
+        final TextView tvLine2;
+        
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvLine1 = itemView.findViewById(R.id.tvLine1);
+            tvLine2 = itemView.findViewById(R.id.tvLine2);
+        }
+    }
+}
@@ -1,19 +1,106 @@
 package com.example.bish;
 
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+
+import com.example.bish.core.ExpenseColumns;
+
 import java.util.List;
 
+// 除写入外的查询都限定在 userId 内，走 (userId, date) 或 (userId, categoryId, amountCents) 索引
 @Dao
 public interface ExpenseDao {
     @Insert
     void insert(Expense expense);
 
+    // 批量写入，整个列表在一个事务中完成
+    @Insert
+    void insertAll(List<Expense> expenses);
+
     @Delete
     void delete(Expense expense);
 
-    @Query("SELECT * FROM expenses ORDER BY date DESC")
-    List<Expense> getAllExpenses();
-}
\ No newline at end of file
+    @Query("SELECT * FROM expenses WHERE userId = :userId ORDER BY date DESC")
+    List<Expense> getAllExpenses(int userId);
+
+    // 分页列表第一页（(userId, date) 索引的叶子节点自带 rowid，按 (date, id) 倒序无需额外排序）
+    @Query("SELECT * FROM expenses WHERE userId = :userId ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Expense> getFirstPage(int userId, int limit);
+
+    // Keyset 分页：从上一页最后一条 (date, id) 之后继续取，避免 OFFSET 扫描
+    // 写成 date <= :date 让 SQLite 能直接在 (userId, date) 索引上做范围扫描
+    @Query("SELECT * FROM expenses WHERE userId = :userId AND date <= :date AND (date < :date OR id < :id) " +
+           "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Expense> getPageBefore(int userId, long date, int id, int limit);
+
+    // 从最新一条到 (date, id) 为止的全部记录，用于数据变化后刷新已加载的窗口
+    @Query("SELECT * FROM expenses WHERE userId = :userId AND date >= :date AND (date > :date OR id >= :id) " +
+           "ORDER BY date DESC, id DESC")
+    List<Expense> getRowsFrom(int userId, long date, int id);
+
+    // 搜索：备注全文匹配 match，或类别属于 categoryIds（由 CategoryCache 在内存中按名称匹配），按时间倒序分页
+    // 备注部分 CROSS JOIN 固定先查 FTS 索引再按主键回表，类别部分走 (userId, categoryId) 索引，代价只与命中行数有关
+    String SEARCH = "SELECT * FROM (" +
+            "SELECT expenses.* FROM expenses_fts CROSS JOIN expenses ON expenses.id = expenses_fts.docid " +
+            "WHERE expenses_fts MATCH :match AND expenses.userId = :userId " +
+            "UNION SELECT * FROM expenses WHERE userId = :userId AND categoryId IN (:categoryIds)) ";
+
+    // match 为 FTS MATCH 表达式，由 ExpensePager.matchQuery 从用户输入生成
+    @Query(SEARCH + "ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Expense> searchFirstPage(int userId, String match, List<Integer> categoryIds, int limit);
+
+    @Query(SEARCH + "WHERE date < :date OR (date = :date AND id < :id) ORDER BY date DESC, id DESC LIMIT :limit")
+    List<Expense> searchPageBefore(int userId, String match, List<Integer> categoryIds, long date, int id, int limit);
+
+    @Query(SEARCH + "WHERE date > :date OR (date = :date AND id >= :id) ORDER BY date DESC, id DESC")
+    List<Expense> searchRowsFrom(int userId, String match, List<Integer> categoryIds, long date, int id);
+
+    String EXPORT = "SELECT expenses.id, amountCents, categories.name AS category, date, note FROM expenses " +
+            "LEFT JOIN categories ON categories.id = expenses.categoryId ";
+
+    // 导出用：按 (date, id) keyset 分块读取，每块一个短游标，避免单个大游标反复重填 CursorWindow
+    // 从 (lastDate, lastId) 之后取到 end 为止，首块传 (start, 0)；走 (userId, date) 索引
+    // 类别名称在这里关联出来，导出的文件与导入格式一致
+    @Query(EXPORT + "WHERE expenses.userId = :userId AND date BETWEEN :lastDate AND :end " +
+           "AND (date > :lastDate OR expenses.id > :lastId) ORDER BY date, expenses.id LIMIT :limit")
+    Cursor exportAfter(int userId, long lastDate, int lastId, long end, int limit);
+
+    // 按类别聚合（走 (userId, categoryId, amountCents) 覆盖索引，结果行数 = 类别数）
+    @Query("SELECT categoryId, SUM(amountCents) AS totalCents, COUNT(*) AS count FROM expenses " +
+           "WHERE userId = :userId GROUP BY categoryId ORDER BY totalCents DESC")
+    List<CategoryTotal> getCategoryTotals(int userId);
+
+    // 同上，expenses 变化时 Room 自动重新查询
+    @Query("SELECT categoryId, SUM(amountCents) AS totalCents, COUNT(*) AS count FROM expenses " +
+           "WHERE userId = :userId GROUP BY categoryId ORDER BY totalCents DESC")
+    LiveData<List<CategoryTotal>> observeCategoryTotals(int userId);
+
+    // 指定时间段内按类别聚合（走 (userId, date) 索引），start/end 为毫秒时间戳，闭区间
+    @Query("SELECT categoryId, SUM(amountCents) AS totalCents, COUNT(*) AS count FROM expenses " +
+           "WHERE userId = :userId AND date BETWEEN :start AND :end GROUP BY categoryId ORDER BY totalCents DESC")
+    List<CategoryTotal> getCategoryTotalsBetween(int userId, long start, long end);
+
+    // 分析用列式扫描：只取三列数值，由 loadColumns 逐行填进基本类型数组（走 (userId, date) 索引）
+    @Query("SELECT date, amountCents, categoryId FROM expenses " +
+           "WHERE userId = :userId AND date BETWEEN :start AND :end ORDER BY date")
+    Cursor scanColumns(int userId, long start, long end);
+
+    // 该用户 [start, end] 内的记录按 date 升序载入 into，覆盖上一次的内容
+    default ExpenseColumns loadColumns(ExpenseColumns into, int userId, long start, long end) {
+        into.clear();
+        long t = Metrics.begin("dao.expenses.columns");
+        try (Cursor c = scanColumns(userId, start, end)) {
+            while (c.moveToNext()) {
+                into.add(c.getLong(0), c.getLong(1), c.getInt(2));
+            }
+        } finally {
+            Metrics.end("dao.expenses.columns", t);
+        }
+        return into;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.bish;
+
+import android.database.Cursor;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.bish.core.Money;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.GZIPOutputStream;
+
+// 按 keyset 分块从游标逐行流式导出为 CSV 或 JSON Lines，可选 gzip 压缩；内存占用与数据量无关
+public class ExpenseExporter {
+
+    public enum Format {
+        CSV("csv"),
+        JSON_LINES("jsonl");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public interface ProgressListener {
+        void onProgress(int exported);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 10_000;
+    // 每块一次 keyset 查询
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final ExpenseDao dao;
+    private final int userId;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public ExpenseExporter(ExpenseDao dao, int userId) {
+        this.dao = dao;
+        this.userId = userId;
+    }
+
+    // 导出该用户 range 内的记录到 out（调用方负责关闭 out），返回导出的行数
+    @WorkerThread
+    public int export(DateRange range, Format format, boolean gzip, OutputStream out, ProgressListener listener) throws IOException {
+        long t = Metrics.begin("export.total");
+        try {
+            return write(range, format, gzip, out, listener);
+        } finally {
+            Metrics.end("export.total", t);
+        }
+    }
+    
+    private int write(DateRange range, Format format, boolean gzip, OutputStream out, ProgressListener listener) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        int rows = 0;
+
+        if (format == Format.CSV) {
+            writer.write("date,amount,category,note\n");
+        }
+        long lastDate = range.start;
+        int lastId = 0;
+        int chunk;
+        do {
+            chunk = 0;
+            try (Cursor c = dao.exportAfter(userId, lastDate, lastId, range.end, CHUNK_SIZE)) {
+                int idCol = c.getColumnIndexOrThrow("id");
+                int amountCol = c.getColumnIndexOrThrow("amountCents");
+                int categoryCol = c.getColumnIndexOrThrow("category");
+                int dateCol = c.getColumnIndexOrThrow("date");
+                int noteCol = c.getColumnIndexOrThrow("note");
+
+                while (c.moveToNext()) {
+                    line.setLength(0);
+                    long date = c.getLong(dateCol);
+                    lastDate = date;
+                    lastId = c.getInt(idCol);
+                    long amountCents = c.getLong(amountCol);
+                    String category = c.getString(categoryCol);
+                    String note = c.getString(noteCol);
+                    if (format == Format.CSV) {
+                        appendDateTime(line, date);
+                        line.append(',');
+                        Money.append(line, amountCents);
+                        line.append(',');
+                        appendCsv(line, category);
+                        line.append(',');
+                        appendCsv(line, note);
+                    } else {
+                        line.append("{\"id\":").append(lastId);
+                        line.append(",\"timestamp\":").append(date);
+                        line.append(",\"date\":\"");
+                        appendDateTime(line, date);
+                        line.append("\",\"amount\":");
+                        Money.append(line, amountCents);
+                        line.append(",\"category\":");
+                        appendJson(line, category);
+                        line.append(",\"note\":");
+                        appendJson(line, note);
+                        line.append('}');
+                    }
+                    line.append('\n');
+                    writer.append(line);
+
+                    rows++;
+                    if (listener != null && rows % PROGRESS_INTERVAL == 0) listener.onProgress(rows);
+                    chunk++;
+                }
+            }
+        } while (chunk == CHUNK_SIZE);
+
+        writer.flush();
+        if (gzip) ((GZIPOutputStream) target).finish();
+        if (listener != null) listener.onProgress(rows);
+        return rows;
+    }
+
+    // yyyy-MM-dd HH:mm:ss，与导入器识别的格式一致
+    private void appendDateTime(StringBuilder sb, long millis) {
+        LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+        sb.append(t.getYear()).append('-');
+        pad2(sb, t.getMonthValue());
+        sb.append('-');
+        pad2(sb, t.getDayOfMonth());
+        sb.append(' ');
+        pad2(sb, t.getHour());
+        sb.append(':');
+        pad2(sb, t.getMinute());
+        sb.append(':');
+        pad2(sb, t.getSecond());
+    }
+
+    private static void pad2(StringBuilder sb, int v) {
+        if (v < 10) sb.append('0');
+        sb.append(v);
+    }
+
+    private static void appendCsv(StringBuilder sb, String s) {
+        if (s == null) return;
+        boolean quote = false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') sb.append('"');
+            sb.append(ch);
+        }
+        sb.append('"');
+    }
+
+    private static void appendJson(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        sb.append(ch);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.bish;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// expenses.note 的外部内容全文索引，docid 即 expenses.id；Room 生成的 room_fts_content_sync_expenses_fts_* 触发器负责同步
+// ICU 分词器能切分中文，“午饭”可以匹配备注“和同事吃午饭”；类别在内存字典里匹配，不进索引
+@Fts4(contentEntity = Expense.class, tokenizer = FtsOptions.TOKENIZER_ICU)
+@Entity(tableName = "expenses_fts")
+public class ExpenseFts {
+    public String note;
+}
@@ -0,0 +1,331 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.bish.core.Money;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// 流式导入 CSV / 银行账单：逐行解析，每 BATCH_SIZE 行通过 insertAll 在一个事务中写入
+// 内存占用只与批大小有关；目标吞吐为中端机上每秒 5 万行以上
+public class ExpenseImporter {
+
+    public interface ProgressListener {
+        // totalBytes 未知时为 -1
+        void onProgress(long bytesRead, long totalBytes, int imported);
+    }
+
+    // 金额正负号的约定：负数为支出的银行流水里，正数是收入、退款，不应记为支出
+    public enum SignConvention {
+        AUTO,               // 按文件前 BATCH_SIZE 行中非零金额多数的正负号判断，持平时按 POSITIVE_EXPENSES
+        NEGATIVE_EXPENSES,  // 负数为支出，正数（收入）跳过
+        POSITIVE_EXPENSES   // 正数为支出（本应用导出的格式），负数（退款）跳过
+    }
+
+    public static final class Result {
+        public int imported;       // 成功写入的行数
+        public int skipped;        // 无法解析或按正负号约定不是支出而跳过的行数
+        public long elapsedMs;     // 总耗时
+
+        public long rowsPerSecond() {
+            return elapsedMs == 0 ? imported : imported * 1000L / elapsedMs;
+        }
+    }
+
+    public static final int BATCH_SIZE = 2000;
+
+    // 表头别名（小写），兼容常见的记账导出和银行流水格式
+    private static final String[] AMOUNT_NAMES = {"amount", "金额", "支出", "交易金额", "支出金额"};
+    private static final String[] CATEGORY_NAMES = {"category", "类别", "分类", "交易类型"};
+    private static final String[] DATE_NAMES = {"date", "time", "日期", "时间", "交易时间", "记账日期"};
+    private static final String[] NOTE_NAMES = {"note", "备注", "摘要", "说明", "description", "交易对方"};
+
+    private static final DateTimeFormatter[] DATE_TIME_FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy/M/d H:mm", Locale.ROOT),
+    };
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy/M/d", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyyMMdd", Locale.ROOT),
+    };
+
+    private final ExpenseDao dao;
+    private final CategoryCache categories;
+    private final int userId;
+    private final SignConvention signs;
+    // 本次导入实际采用的约定，AUTO 在第一批时确定
+    private SignConvention resolved;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // 原始类别文本 -> id，同一文件里类别反复出现，免去每行都规范化一次
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    // 上一次解析成功的格式，同一文件的日期格式通常一致
+    private DateTimeFormatter lastFormat;
+    private boolean lastFormatHasTime;
+
+    // 导入的记录都归属 userId，类别名称经 categories 转成 id（不存在时创建）
+    public ExpenseImporter(ExpenseDao dao, CategoryCache categories, int userId) {
+        this(dao, categories, userId, SignConvention.AUTO);
+    }
+
+    public ExpenseImporter(ExpenseDao dao, CategoryCache categories, int userId, SignConvention signs) {
+        this.dao = dao;
+        this.categories = categories;
+        this.userId = userId;
+        this.signs = signs;
+    }
+
+    @WorkerThread
+    public Result importCsv(Context context, Uri uri, ProgressListener listener) throws IOException {
+        long size = -1;
+        try (Cursor c = context.getContentResolver().query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (c != null && c.moveToFirst() && !c.isNull(0)) size = c.getLong(0);
+        }
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) throw new IOException("无法打开文件: " + uri);
+            return importCsv(in, size, listener);
+        }
+    }
+
+    @WorkerThread
+    public Result importCsv(InputStream input, long totalBytes, ProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        Result result = new Result();
+        resolved = signs;
+        CountingInputStream counting = new CountingInputStream(input);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(counting, StandardCharsets.UTF_8), 64 * 1024);
+
+        List<String> fields = new ArrayList<>();
+        if (!readRecord(reader, fields)) {
+            result.elapsedMs = System.currentTimeMillis() - start;
+            return result;
+        }
+        if (!fields.isEmpty() && fields.get(0).startsWith("\uFEFF")) {
+            fields.set(0, fields.get(0).substring(1));
+        }
+        int amountCol = indexOf(fields, AMOUNT_NAMES);
+        int categoryCol = indexOf(fields, CATEGORY_NAMES);
+        int dateCol = indexOf(fields, DATE_NAMES);
+        int noteCol = indexOf(fields, NOTE_NAMES);
+        if (amountCol < 0 || dateCol < 0) {
+            throw new IOException("缺少金额或日期列: " + fields);
+        }
+
+        List<Expense> batch = new ArrayList<>(BATCH_SIZE);
+        while (readRecord(reader, fields)) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) continue; // 空行
+            Expense e = parseRow(fields, amountCol, categoryCol, dateCol, noteCol);
+            if (e == null) {
+                result.skipped++;
+                continue;
+            }
+            batch.add(e);
+            if (batch.size() == BATCH_SIZE) {
+                flush(batch, result);
+                if (listener != null) listener.onProgress(counting.count, totalBytes, result.imported);
+            }
+        }
+        flush(batch, result);
+        if (listener != null) listener.onProgress(counting.count, totalBytes, result.imported);
+
+        result.elapsedMs = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    // batch 中的金额仍带符号：按约定只保留支出并转成正数；AUTO 在第一批（文件开头）时确定约定
+    // 按多数判断，本应用导出的文件里个别退款负数不会把整份文件翻成负数为支出
+    private void flush(List<Expense> batch, Result result) {
+        if (resolved == SignConvention.AUTO && !batch.isEmpty()) {
+            int balance = 0;
+            for (Expense e : batch) balance += Long.signum(e.amountCents);
+            resolved = balance < 0 ? SignConvention.NEGATIVE_EXPENSES : SignConvention.POSITIVE_EXPENSES;
+        }
+        boolean negative = resolved == SignConvention.NEGATIVE_EXPENSES;
+        int kept = 0;
+        for (Expense e : batch) {
+            if (negative ? e.amountCents >= 0 : e.amountCents <= 0) {
+                result.skipped++;
+                continue;
+            }
+            e.amountCents = Math.abs(e.amountCents);
+            batch.set(kept++, e);
+        }
+        batch.subList(kept, batch.size()).clear();
+        if (batch.isEmpty()) return;
+        long t = Metrics.begin("dao.expenses.insertBatch");
+        try {
+            dao.insertAll(batch);
+        } finally {
+            Metrics.end("dao.expenses.insertBatch", t);
+        }
+        result.imported += batch.size();
+        batch.clear();
+    }
+
+    private Expense parseRow(List<String> f, int amountCol, int categoryCol, int dateCol, int noteCol) {
+        if (amountCol >= f.size() || dateCol >= f.size()) return null;
+        long amountCents;
+        try {
+            // 去掉千分位和货币符号，保留正负号，由 flush 按约定筛选
+            String raw = f.get(amountCol).replace(",", "").replace("¥", "").replace("￥", "").trim();
+            amountCents = Money.parseCents(raw);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (amountCents == 0) return null;
+
+        long date = parseDate(f.get(dateCol).trim());
+        if (date < 0) return null;
+
+        Expense e = new Expense();
+        e.userId = userId;
+        e.amountCents = amountCents;
+        e.date = date;
+        String category = categoryCol >= 0 && categoryCol < f.size() ? f.get(categoryCol) : "";
+        Integer categoryId = categoryIds.get(category);
+        if (categoryId == null) {
+            categoryId = categories.idFor(userId, category);
+            categoryIds.put(category, categoryId);
+        }
+        e.categoryId = categoryId;
+        e.note = noteCol >= 0 && noteCol < f.size() ? f.get(noteCol).trim() : "";
+        return e;
+    }
+
+    // 返回毫秒时间戳，无法解析时返回 -1
+    private long parseDate(String s) {
+        if (s.isEmpty()) return -1;
+        if (lastFormat != null) {
+            long t = tryParse(s, lastFormat, lastFormatHasTime);
+            if (t >= 0) return t;
+        }
+        for (DateTimeFormatter f : DATE_TIME_FORMATS) {
+            long t = tryParse(s, f, true);
+            if (t >= 0) {
+                lastFormat = f;
+                lastFormatHasTime = true;
+                return t;
+            }
+        }
+        for (DateTimeFormatter f : DATE_FORMATS) {
+            long t = tryParse(s, f, false);
+            if (t >= 0) {
+                lastFormat = f;
+                lastFormatHasTime = false;
+                return t;
+            }
+        }
+        // 纯数字：秒或毫秒时间戳
+        try {
+            long v = Long.parseLong(s);
+            return v < 100_000_000_000L ? v * 1000 : v;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private long tryParse(String s, DateTimeFormatter f, boolean hasTime) {
+        try {
+            if (hasTime) {
+                return LocalDateTime.parse(s, f).atZone(zone).toInstant().toEpochMilli();
+            }
+            return LocalDate.parse(s, f).atStartOfDay(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return -1;
+        }
+    }
+
+    private static int indexOf(List<String> header, String[] names) {
+        for (int i = 0; i < header.size(); i++) {
+            String h = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String n : names) {
+                if (h.equals(n)) return i;
+            }
+        }
+        return -1;
+    }
+
+    // 读取一条 CSV 记录到 fields（复用列表），支持引号、转义引号和引号内换行；文件结束返回 false
+    static boolean readRecord(BufferedReader reader, List<String> fields) throws IOException {
+        fields.clear();
+        String line = reader.readLine();
+        if (line == null) return false;
+        StringBuilder sb = new StringBuilder();
+        boolean inQuotes = false;
+        while (true) {
+            for (int i = 0, n = line.length(); i < n; i++) {
+                char ch = line.charAt(i);
+                if (inQuotes) {
+                    if (ch != '"') {
+                        sb.append(ch);
+                    } else if (i + 1 < n && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else if (ch == '"') {
+                    inQuotes = true;
+                } else if (ch == ',') {
+                    fields.add(sb.toString());
+                    sb.setLength(0);
+                } else {
+                    sb.append(ch);
+                }
+            }
+            if (!inQuotes) break;
+            // 引号内的换行，继续读下一行
+            line = reader.readLine();
+            if (line == null) break;
+            sb.append('\n');
+        }
+        fields.add(sb.toString());
+        return true;
+    }
+
+    // 统计已读取的字节数，用于进度
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.bish;
+
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 按 (date DESC, id DESC) 做 keyset 分页，只保存已加载的页；方法均在后台线程调用
+// 设置了搜索词时改为在搜索命中（备注全文索引或类别名称）里分页，排序规则不变
+public class ExpensePager {
+    
+    public static final int PAGE_SIZE = 50;
+    
+    private final ExpenseDao dao;
+    private final CategoryCache categories;
+    private final int userId;
+    private final List<Expense> loaded = new ArrayList<>();
+    private boolean endReached;
+    private int generation;
+    // 当前的 FTS MATCH 表达式，null 表示不过滤；categoryIds 为名称匹配搜索词的类别
+    private String match;
+    private List<Integer> categoryIds = Collections.emptyList();
+    
+    public ExpensePager(ExpenseDao dao, CategoryCache categories, int userId) {
+        this.dao = dao;
+        this.categories = categories;
+        this.userId = userId;
+    }
+    
+    // 切换搜索词（空白表示取消搜索）并重新取第一页，返回新的列表快照
+    @WorkerThread
+    public List<Expense> search(String text) {
+        String m = matchQuery(text);
+        categories.ensureLoaded();
+        List<Integer> ids = categories.matching(userId, text);
+        synchronized (this) {
+            match = m;
+            categoryIds = ids;
+            generation++;
+        }
+        return refresh();
+    }
+    
+    // 丢弃已加载内容，重新取第一页，返回新的列表快照；期间切换了搜索词时返回 null
+    @WorkerThread
+    public List<Expense> refresh() {
+        // 列表在主线程按 categoryId 取名称，第一页返回前保证字典已载入
+        categories.ensureLoaded();
+        final int gen;
+        final String m;
+        final List<Integer> ids;
+        synchronized (this) {
+            gen = generation;
+            m = match;
+            ids = categoryIds;
+        }
+        long t = Metrics.begin(m == null ? "dao.expenses.firstPage" : "dao.expenses.search");
+        List<Expense> page;
+        try {
+            page = m == null
+                    ? dao.getFirstPage(userId, PAGE_SIZE)
+                    : dao.searchFirstPage(userId, m, ids, PAGE_SIZE);
+        } finally {
+            Metrics.end(m == null ? "dao.expenses.firstPage" : "dao.expenses.search", t);
+        }
+        synchronized (this) {
+            if (gen != generation) return null;
+            generation++;
+            loaded.clear();
+            loaded.addAll(page);
+            endReached = page.size() < PAGE_SIZE;
+            return snapshot();
+        }
+    }
+    
+    // 追加下一页，返回新的列表快照；已到末尾或期间发生过 refresh 时返回 null
+    @WorkerThread
+    public List<Expense> loadNextPage() {
+        final int gen;
+        final Expense last;
+        final String m;
+        final List<Integer> ids;
+        synchronized (this) {
+            if (endReached || loaded.isEmpty()) return null;
+            gen = generation;
+            last = loaded.get(loaded.size() - 1);
+            m = match;
+            ids = categoryIds;
+        }
+        long t = Metrics.begin("dao.expenses.pageBefore");
+        List<Expense> page;
+        try {
+            page = m == null
+                    ? dao.getPageBefore(userId, last.date, last.id, PAGE_SIZE)
+                    : dao.searchPageBefore(userId, m, ids, last.date, last.id, PAGE_SIZE);
+        } finally {
+            Metrics.end("dao.expenses.pageBefore", t);
+        }
+        synchronized (this) {
+            if (gen != generation || loaded.get(loaded.size() - 1) != last) return null;
+            loaded.addAll(page);
+            if (page.size() < PAGE_SIZE) endReached = true;
+            return snapshot();
+        }
+    }
+    
+    // 数据变化后重新读取已加载的范围（新插入的行也会包含在内），返回新的列表快照
+    @WorkerThread
+    public List<Expense> reload() {
+        final int gen;
+        final Expense last;
+        final boolean wasEnd;
+        final int size;
+        final String m;
+        final List<Integer> ids;
+        synchronized (this) {
+            if (loaded.isEmpty()) return refresh();
+            gen = generation;
+            last = loaded.get(loaded.size() - 1);
+            wasEnd = endReached;
+            size = loaded.size();
+            m = match;
+            ids = categoryIds;
+        }
+        // 已加载到末尾时下界不再固定，避免漏掉比最后一条更早的新记录
+        long t = Metrics.begin("dao.expenses.reload");
+        List<Expense> rows;
+        try {
+            if (m == null) {
+                rows = wasEnd
+                        ? dao.getFirstPage(userId, size + PAGE_SIZE)
+                        : dao.getRowsFrom(userId, last.date, last.id);
+            } else {
+                rows = wasEnd
+                        ? dao.searchFirstPage(userId, m, ids, size + PAGE_SIZE)
+                        : dao.searchRowsFrom(userId, m, ids, last.date, last.id);
+            }
+        } finally {
+            Metrics.end("dao.expenses.reload", t);
+        }
+        synchronized (this) {
+            if (gen != generation) return null;
+            generation++;
+            loaded.clear();
+            loaded.addAll(rows);
+            if (wasEnd) endReached = rows.size() < size + PAGE_SIZE;
+            return snapshot();
+        }
+    }
+    
+    public synchronized boolean isEndReached() {
+        return endReached;
+    }
+    
+    // 用户输入 -> FTS MATCH 表达式：按空白拆词，每个词作为前缀匹配，多个词需同时命中
+    // 每个词加引号，避免输入中的 OR、NEAR、- 等被当作查询语法
+    static String matchQuery(String text) {
+        if (text == null) return null;
+        StringBuilder sb = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            String w = word.replace("\"", "").replace("*", "");
+            if (w.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('"').append(w).append("*\"");
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+    
+    private List<Expense> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(loaded));
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.bish;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.bish.core.ExpenseColumns;
+import com.example.bish.core.HoltWinters;
+import com.example.bish.core.Money;
+import com.example.bish.core.SpendingAnalysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+// 预测流程：读取日汇总 -> LSTM 推理 -> 生成分析文字，供界面和基准测试共用
+public class ExpensePredictor {
+    
+    public static final int WEEK = SpendingAnalysis.WEEK;
+    public static final int MONTH = SpendingAnalysis.MONTH;
+    
+    // 预测结果：展示文本，以及未来 MONTH 天的逐日预测（数据不足时为 null）
+    // stale 只出现在从 prediction_results 读出的结果上：数据或日期已变化，应重新计算
+    public static final class Outcome {
+        public final String prediction;
+        public final String outlook;
+        public final String analysis;
+        public final float[] forecast;
+        public final boolean stale;
+        
+        Outcome(String prediction, String outlook, String analysis, float[] forecast) {
+            this(prediction, outlook, analysis, forecast, false);
+        }
+        
+        Outcome(String prediction, String outlook, String analysis, float[] forecast, boolean stale) {
+            this.prediction = prediction;
+            this.outlook = outlook;
+            this.analysis = analysis;
+            this.forecast = forecast;
+            this.stale = stale;
+        }
+    }
+    
+    private final AppDatabase db;
+    private final ForecastEngine engine;
+    private final BaselineForecaster baseline;
+    private final int userId;
+    
+    // 复用的输入窗口；上一次结果及其数据版本和日期，两者都没变时直接返回，不再推理
+    // 数据版本在金额、日期、类别变化时都会加一，只改类别、日合计不变时分类预测也会重算
+    private final double[] window = new double[ForecastEngine.WINDOW];
+    private Outcome cachedOutcome;
+    private long cachedDay;
+    private long cachedVersion;
+    // 最近一次 compute 走了异常分支，这样的结果不持久化，下次重试
+    private boolean failed;
+    
+    public ExpensePredictor(AppDatabase db, ForecastEngine engine, int userId) {
+        this.db = db;
+        this.engine = engine;
+        this.baseline = new BaselineForecaster(db, userId);
+        this.userId = userId;
+    }
+    
+    // 丢弃缓存的结果，下次 predict 必定重新推理
+    synchronized void invalidate() {
+        cachedOutcome = null;
+    }
+    
+    // summary 可传入 LiveData 推送的最新值，为 null 时直接查询
+    @WorkerThread
+    public synchronized Outcome predict(DailySummary summary) {
+        long t = Metrics.begin("prediction.compute");
+        try {
+            return compute(summary);
+        } finally {
+            Metrics.end("prediction.compute", t);
+        }
+    }
+    
+    // 持久化的上一次结果，没有时返回 null；只读一行，预测页打开时先展示它
+    @WorkerThread
+    public Outcome stored() {
+        PredictionResult row = db.predictionResultDao().get(userId);
+        if (row == null || row.prediction == null) return null;
+        boolean stale = row.resultVersion != row.dataVersion || row.computedDay != LocalDate.now().toEpochDay();
+        return new Outcome(row.prediction, row.outlook, row.analysis, decode(row.forecast), stale);
+    }
+    
+    // 持久化的结果仍有效时直接返回，否则重新预测并存回；存入的是计算前读到的数据版本，
+    // 计算期间有写入时结果随即过期，下次再算。后台任务和预测页都走这里
+    @WorkerThread
+    public synchronized Outcome refresh(DailySummary summary) {
+        long today = LocalDate.now().toEpochDay();
+        PredictionResult row = db.predictionResultDao().get(userId);
+        if (row != null && row.prediction != null && row.resultVersion == row.dataVersion && row.computedDay == today) {
+            return new Outcome(row.prediction, row.outlook, row.analysis, decode(row.forecast));
+        }
+        long version = row == null ? 0 : row.dataVersion;
+        Outcome outcome = predict(summary);
+        if (!failed) {
+            db.predictionResultDao().saveResult(userId, version, today, outcome.prediction, outcome.outlook,
+                    outcome.analysis, encode(outcome.forecast));
+        }
+        return outcome;
+    }
+    
+    private static byte[] encode(float[] forecast) {
+        if (forecast == null) return null;
+        ByteBuffer buf = ByteBuffer.allocate(forecast.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (float v : forecast) buf.putFloat(v);
+        return buf.array();
+    }
+    
+    private static float[] decode(byte[] bytes) {
+        if (bytes == null) return null;
+        ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        float[] forecast = new float[bytes.length / 4];
+        for (int i = 0; i < forecast.length; i++) forecast[i] = buf.getFloat();
+        return forecast;
+    }
+    
+    // 只用 Holt-Winters 的快速预测（毫秒级），界面在 LSTM 结果出来前先展示它
+    @WorkerThread
+    public Outcome predictBaseline() {
+        HoltWinters model = baseline.current();
+        if (model.isEmpty()) return null;
+        return baselineOutcome(model, "统计模型预测明日支出", "LSTM 预测计算中…");
+    }
+    
+    private Outcome compute(DailySummary summary) {
+        failed = false;
+        // 日汇总表由触发器维护，只需要汇总行和最近 30 天
+        if (summary == null) {
+            long t = Metrics.begin("dao.dailyTotals.summary");
+            try {
+                summary = db.dailyTotalDao().getSummary(userId);
+            } finally {
+                Metrics.end("dao.dailyTotals.summary", t);
+            }
+        }
+        
+        // 数据不足以使用 LSTM 时由 Holt-Winters 预测；连一个完整的日子都没有时才退回平均值
+        if (summary.expenses < 15 || summary.days < ForecastEngine.WINDOW) {
+            HoltWinters model = baseline.current();
+            if (model.isEmpty()) {
+                long avg = summary.expenses == 0 ? 0 : Math.round((double) summary.totalCents / summary.expenses);
+                return new Outcome("数据不足，预测支出：¥" + Money.format(avg),
+                        "", "提示：记录满一天后即可使用统计模型预测", null);
+            }
+            return baselineOutcome(model, "统计模型预测明日支出",
+                    String.format(Locale.getDefault(), "提示：当前 %d 天 / %d 条记录，满 %d 天且至少 15 条后使用 LSTM 预测",
+                            summary.days, summary.expenses, ForecastEngine.WINDOW));
+        }
+        
+        try {
+            // 截至今天的连续 30 个自然日，没有支出的日子补 0，窗口不会因为空白日而拉长
+            long today = LocalDate.now().toEpochDay();
+            // 先于明细读取版本：读取期间有写入时缓存的是旧版本，下次必定重算
+            Long v = db.predictionResultDao().dataVersion(userId);
+            long version = v == null ? 0 : v;
+            // 分类预测按自然日取窗口，跨天后即使数据未变也要重算
+            if (cachedOutcome != null && cachedDay == today && cachedVersion == version) {
+                return cachedOutcome;
+            }
+            long firstDay = today - ForecastEngine.WINDOW + 1;
+            long t = Metrics.begin("dao.dailyTotals.range");
+            try {
+                db.dailyTotalDao().getSeries(userId, firstDay, today).window(today, window);
+            } finally {
+                Metrics.end("dao.dailyTotals.range", t);
+            }
+            // 一次滚动出 30 天，明日 / 7 天 / 30 天都取自同一组结果
+            float[] forecast = new float[MONTH];
+            engine.forecast(window, forecast);
+            float pred = forecast[0];
+            String result = "LSTM 预测明日支出：¥" + String.format(Locale.getDefault(), "%.2f", pred);
+            
+            // 分析建议，附上 Holt-Winters 基准作为对照
+            String analysis = SpendingAnalysis.analysis(window, pred) + compareWithBaseline(pred) + forecastCategories(today);
+            Outcome outcome = new Outcome(result, SpendingAnalysis.outlook(forecast), analysis, forecast);
+            cachedDay = today;
+            cachedVersion = version;
+            cachedOutcome = outcome;
+            return outcome;
+            
+        } catch (Exception e) {
+            // 模型不可用时退回统计模型
+            e.printStackTrace();
+            failed = true;
+            HoltWinters model = baseline.current();
+            if (model.isEmpty()) {
+                return new Outcome("预测失败：" + e.getMessage(), "", "请确保模型文件存在于 assets 目录", null);
+            }
+            return baselineOutcome(model, "LSTM 不可用，统计模型预测明日支出", "LSTM 预测失败：" + e.getMessage());
+        }
+    }
+    
+    // 模型折叠到昨天，明日为其后第 2 天；展望取明日起的 30 天
+    private Outcome baselineOutcome(HoltWinters model, String title, String note) {
+        float[] forecast = new float[MONTH];
+        model.forecast(2, forecast);
+        String prediction = title + "：¥" + String.format(Locale.getDefault(), "%.2f", forecast[0]);
+        String analysis = note + String.format(Locale.getDefault(),
+                "\n\nHolt-Winters（周季节性）基于 %d 天数据", model.getDays());
+        return new Outcome(prediction, SpendingAnalysis.outlook(forecast), analysis, forecast);
+    }
+    
+    private String compareWithBaseline(float pred) {
+        HoltWinters model = baseline.current();
+        if (model.isEmpty()) return "";
+        double base = model.forecast(2);
+        double diff = base > 0 ? (pred - base) / base * 100 : 0;
+        return String.format(Locale.getDefault(), "\n统计基准（Holt-Winters）明日：¥%.2f，LSTM 相差 %+.1f%%", base, diff);
+    }
+    
+    // 分类预测：每个类别最近 WINDOW 个自然日（无支出补 0）组成一条序列，一起批量滚动 WEEK 天
+    private String forecastCategories(long today) throws IOException {
+        long firstDay = today - ForecastEngine.WINDOW + 1;
+        ExpenseColumns.CategorySeries byCategory =
+                db.expenseRepository().categoryDailySeries(userId, firstDay, ForecastEngine.WINDOW);
+        if (byCategory.size() == 0) return "";
+        
+        double[][] series = byCategory.series;
+        float[][] out = new float[series.length][WEEK];
+        long t = Metrics.begin("prediction.categoryBatch");
+        try {
+            engine.forecastBatch(series, out);
+        } finally {
+            Metrics.end("prediction.categoryBatch", t);
+        }
+        
+        // 按未来 7 天合计从高到低展示
+        Integer[] order = new Integer[series.length];
+        double[] weekTotals = new double[series.length];
+        for (int k = 0; k < series.length; k++) {
+            order[k] = k;
+            for (float v : out[k]) weekTotals[k] += v;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(weekTotals[b], weekTotals[a]));
+        
+        CategoryCache names = db.categoryCache();
+        names.ensureLoaded();
+        StringBuilder sb = new StringBuilder("\n\n分类预测（明日 / 未来 7 天）：");
+        for (int k : order) {
+            sb.append(String.format(Locale.getDefault(), "\n• %s：¥%.2f / ¥%.2f",
+                    names.name(byCategory.categoryIds[k]), out[k][0], weekTotals[k]));
+        }
+        return sb.toString();
+    }
+}
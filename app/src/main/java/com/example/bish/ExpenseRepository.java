@@ -0,0 +1,194 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.bish.core.ExpenseColumns;
+import com.example.bish.core.LocalDays;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// 各页面与 ExpenseDao 之间的共享层：查询和聚合结果按 (查询, 用户, 时间范围) 缓存在内存里，并记下计算时的数据版本
+// 明细的写操作都经过这里：每次写入版本加一，只淘汰同一用户、时间范围覆盖被改动日期的条目，其余条目顺延到新版本继续使用
+// 版本在写入前就加一并标记写入进行中，直到写入返回：Room 的失效通知在提交后异步发出，
+// 由此触发的重新加载即使赶在写入返回前到达，也不会命中旧条目；WAL 下它可能读到提交前的快照，
+// 所以加载开始时或加载期间有写入进行中的结果都不入缓存
+// 每个数据库文件一份，见 AppDatabase.expenseRepository
+public class ExpenseRepository {
+
+    // 条目数上限，超出时按最近最少使用淘汰；每条只是一个类别数量级的小列表
+    static final int MAX_ENTRIES = 64;
+
+    private static final long ALL_START = Long.MIN_VALUE;
+    private static final long ALL_END = Long.MAX_VALUE;
+
+    private final AppDatabase db;
+    // 列式扫描的复用缓冲区
+    private final ExpenseColumns columns = new ExpenseColumns();
+    private final Map<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private long version;
+    // 进行中的写入数，不为 0 时加载的结果不入缓存
+    private int writing;
+    private int hits;
+    private int misses;
+
+    ExpenseRepository(AppDatabase db) {
+        this.db = db;
+    }
+
+    // 图表：任意时间范围内按类别合计
+    @WorkerThread
+    public List<CategoryTotal> rangeTotals(int userId, DateRange range) {
+        return cached("rangeTotals", userId, range.start, range.end,
+                () -> Collections.unmodifiableList(RangeTotals.load(db, userId, range)));
+    }
+
+    // 分类预测：从 firstDay 起 days 天，每个类别一条日序列；明细走列式扫描，复用同一组数组
+    @WorkerThread
+    public ExpenseColumns.CategorySeries categoryDailySeries(int userId, long firstDay, int days) {
+        LocalDays localDays = LocalDays.systemDefault();
+        long start = localDays.startOfDay(firstDay);
+        long end = localDays.startOfDay(firstDay + days) - 1;
+        return cached("categoryDaily", userId, start, end, () -> {
+            synchronized (columns) {
+                return db.expenseDao().loadColumns(columns, userId, start, end).dailyByCategory(localDays, firstDay, days);
+            }
+        });
+    }
+
+    @WorkerThread
+    public void insert(Expense expense) {
+        beginWrite(expense.userId, expense.date, expense.date);
+        try {
+            db.expenseDao().insert(expense);
+        } finally {
+            endWrite();
+        }
+    }
+
+    @WorkerThread
+    public void delete(Expense expense) {
+        beginWrite(expense.userId, expense.date, expense.date);
+        try {
+            db.expenseDao().delete(expense);
+        } finally {
+            endWrite();
+        }
+    }
+
+    // 导入的日期范围事先不知道，淘汰该用户的全部条目；整个导入期间（各批次分别提交）都不写入缓存
+    @WorkerThread
+    public ExpenseImporter.Result importCsv(Context context, Uri uri, int userId,
+                                            ExpenseImporter.ProgressListener listener) throws IOException {
+        beginWrite(userId, ALL_START, ALL_END);
+        try {
+            return new ExpenseImporter(db.expenseDao(), db.categoryCache(), userId).importCsv(context, uri, listener);
+        } finally {
+            endWrite();
+        }
+    }
+
+    // 命中要求条目的版本等于当前版本；只有加载开始时没有进行中的写入、且加载前后版本不变时，结果才存入
+    // （开始后才开始的写入会改变版本）
+    <T> T cached(String query, int userId, long start, long end, Loader<T> loader) {
+        Key key = new Key(query, userId, start, end);
+        long v;
+        boolean clean;
+        synchronized (this) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.version == version) {
+                hits++;
+                @SuppressWarnings("unchecked")
+                T value = (T) entry.value;
+                return value;
+            }
+            misses++;
+            v = version;
+            clean = writing == 0;
+        }
+        T value = loader.load();
+        synchronized (this) {
+            if (clean && version == v) cache.put(key, new Entry(v, value));
+        }
+        return value;
+    }
+
+    // 用户 userId 在 [from, to] 内的明细即将变化：版本加一并淘汰受影响的条目
+    synchronized void beginWrite(int userId, long from, long to) {
+        writing++;
+        version++;
+        Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            Key k = e.getKey();
+            Entry entry = e.getValue();
+            if (entry.version != version - 1 || k.userId == userId && k.start <= to && from <= k.end) {
+                it.remove();
+            } else {
+                entry.version = version;
+            }
+        }
+    }
+
+    // 写入已提交（或失败）；此后的加载读到的都是提交后的数据
+    synchronized void endWrite() {
+        writing--;
+    }
+
+    public synchronized String stats() {
+        return "entries=" + cache.size() + " hits=" + hits + " misses=" + misses + " version=" + version;
+    }
+
+    interface Loader<T> {
+        T load();
+    }
+
+    private static final class Key {
+        final String query;
+        final int userId;
+        final long start;
+        final long end;
+
+        Key(String query, int userId, long start, long end) {
+            this.query = query;
+            this.userId = userId;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return userId == k.userId && start == k.start && end == k.end && query.equals(k.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, userId, start, end);
+        }
+    }
+
+    private static final class Entry {
+        long version;
+        final Object value;
+
+        Entry(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
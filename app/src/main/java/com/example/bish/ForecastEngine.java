@@ -0,0 +1,270 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Trace;
+import android.util.Log;
+
+import com.example.bish.core.MinMaxScaler;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// 应用级 LSTM 推理引擎：模型和归一化参数只加载一次，输入输出张量预先分配并复用
+public class ForecastEngine {
+    
+    private static final String TAG = "ForecastEngine";
+    private static final String MODEL_FILE = "lstm_expense_model.tflite";
+    
+    public static final int WINDOW = 30;    // 模型输入：最近 30 天的日支出
+    public static final int MAX_HORIZON = 30; // 自回归滚动预测的最大天数
+    
+    private static volatile ForecastEngine INSTANCE;
+    
+    private final Context appContext;
+    private Interpreter interpreter;
+    private MinMaxScaler scaler;
+    
+    // 预分配的输入输出，predict() 中不再分配内存
+    private final ByteBuffer inputBuffer = ByteBuffer.allocateDirect(WINDOW * 4).order(ByteOrder.nativeOrder());
+    private final float[][] output = new float[1][1];
+    // 归一化后的输入窗口 + 滚动预测值，forecast() 每步从中截取 WINDOW 个写入 inputBuffer
+    private final float[] series = new float[WINDOW + MAX_HORIZON];
+    private final float[] single = new float[1];
+    
+    // 批量推理：输入张量第 0 维为 batch，按需 resizeInput；模型不支持时退回逐条推理
+    private int batchSize = 1;
+    private boolean batchUnsupported;
+    private ByteBuffer batchInput;
+    private float[][] batchOutput;
+    private float[][] batchSeries;
+    
+    // 推理耗时统计（不含首次运行）
+    private long runCount;
+    private long lastLatencyNanos;
+    private long totalLatencyNanos;
+    
+    private ForecastEngine(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+    
+    public static ForecastEngine getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ForecastEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ForecastEngine(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+    
+    // 在后台线程调用：映射模型、读取归一化参数，并跑一次空推理让 select-tf-ops 完成初始化
+    public synchronized void warmUp() throws IOException {
+        ensureLoaded();
+        resizeBatch(1);
+        for (int i = 0; i < WINDOW; i++) inputBuffer.putFloat(i * 4, 0f);
+        inputBuffer.rewind();
+        long t = Metrics.begin("model.warmUpRun");
+        try {
+            interpreter.run(inputBuffer, output);
+        } finally {
+            Metrics.end("model.warmUpRun", t);
+        }
+    }
+    
+    // 输入按时间升序的最近 WINDOW 天日支出（原始金额），返回反归一化后的预测值
+    public synchronized float predict(double[] daily) throws IOException {
+        forecast(daily, single);
+        return single[0];
+    }
+    
+    // 自回归滚动预测未来 out.length 天：每步把上一步的输出接到窗口末尾再推理一次
+    // 整个过程在同一个 interpreter 上完成，只复用预分配的缓冲区，不分配内存
+    public synchronized void forecast(double[] daily, float[] out) throws IOException {
+        if (daily.length != WINDOW) {
+            throw new IllegalArgumentException("需要 " + WINDOW + " 天数据，实际 " + daily.length);
+        }
+        if (out.length == 0 || out.length > MAX_HORIZON) {
+            throw new IllegalArgumentException("预测天数需在 1 ~ " + MAX_HORIZON + " 之间，实际 " + out.length);
+        }
+        ensureLoaded();
+        resizeBatch(1);
+        scaler.normalize(daily, series, 0);
+        // 支出不会为负，回填窗口前截断到 0 元对应的归一化值，避免误差在滚动中放大
+        float floor = scaler.floor();
+        
+        for (int step = 0; step < out.length; step++) {
+            for (int i = 0; i < WINDOW; i++) {
+                inputBuffer.putFloat(i * 4, series[step + i]);
+            }
+            inputBuffer.rewind();
+            
+            Trace.beginSection("model.run");
+            long start = System.nanoTime();
+            interpreter.run(inputBuffer, output);
+            long nanos = System.nanoTime() - start;
+            Trace.endSection();
+            recordLatency(nanos);
+            
+            float next = Math.max(output[0][0], floor);
+            series[WINDOW + step] = next;
+            out[step] = scaler.denormalize(next);
+        }
+    }
+    
+    // 多条序列一起滚动预测：series[k] 为第 k 条按时间升序的 WINDOW 天数据，结果写入 out[k]
+    // 每一步把所有序列打包成 [N, WINDOW, 1] 的输入只推理一次，总耗时与单条预测相近
+    public synchronized void forecastBatch(double[][] series, float[][] out) throws IOException {
+        int n = series.length;
+        if (n == 0) return;
+        int horizon = out[0].length;
+        if (horizon == 0 || horizon > MAX_HORIZON) {
+            throw new IllegalArgumentException("预测天数需在 1 ~ " + MAX_HORIZON + " 之间，实际 " + horizon);
+        }
+        ensureLoaded();
+        if (!batchUnsupported) {
+            try {
+                resizeBatch(n);
+            } catch (RuntimeException e) {
+                // 部分 select-tf-ops 模型的 batch 维固定为 1
+                Log.w(TAG, "模型不支持批量输入，退回逐条推理", e);
+                batchUnsupported = true;
+                batchSize = -1;
+            }
+        }
+        if (batchUnsupported) {
+            for (int k = 0; k < n; k++) forecast(series[k], out[k]);
+            return;
+        }
+        
+        if (batchSeries == null || batchSeries.length < n) {
+            batchSeries = new float[n][WINDOW + MAX_HORIZON];
+        }
+        for (int k = 0; k < n; k++) {
+            if (series[k].length != WINDOW) {
+                throw new IllegalArgumentException("需要 " + WINDOW + " 天数据，实际 " + series[k].length);
+            }
+            scaler.normalize(series[k], batchSeries[k], 0);
+        }
+        float floor = scaler.floor();
+        
+        for (int step = 0; step < horizon; step++) {
+            batchInput.clear();
+            for (int k = 0; k < n; k++) {
+                for (int i = 0; i < WINDOW; i++) {
+                    batchInput.putFloat(batchSeries[k][step + i]);
+                }
+            }
+            batchInput.flip();
+            
+            Trace.beginSection("model.runBatch");
+            long start = System.nanoTime();
+            interpreter.run(batchInput, batchOutput);
+            long nanos = System.nanoTime() - start;
+            Trace.endSection();
+            lastLatencyNanos = nanos;
+            Metrics.record("model.runBatch", nanos);
+            
+            for (int k = 0; k < n; k++) {
+                float next = Math.max(batchOutput[k][0], floor);
+                batchSeries[k][WINDOW + step] = next;
+                out[k][step] = scaler.denormalize(next);
+            }
+        }
+    }
+    
+    // 把输入张量第 0 维改为 n；单条预测前改回 1
+    private void resizeBatch(int n) {
+        if (n == batchSize) return;
+        int[] shape = interpreter.getInputTensor(0).shape().clone();
+        shape[0] = n;
+        interpreter.resizeInput(0, shape);
+        interpreter.allocateTensors();
+        batchSize = n;
+        if (n == 1) return;
+        
+        int[] outShape = interpreter.getOutputTensor(0).shape();
+        if (outShape[0] != n) {
+            throw new IllegalStateException("输出 batch 维为 " + outShape[0] + "，期望 " + n);
+        }
+        if (batchInput == null || batchInput.capacity() < n * WINDOW * 4) {
+            batchInput = ByteBuffer.allocateDirect(n * WINDOW * 4).order(ByteOrder.nativeOrder());
+        }
+        batchOutput = new float[n][1];
+    }
+    
+    private void recordLatency(long nanos) {
+        Metrics.record("model.run", nanos);
+        lastLatencyNanos = nanos;
+        runCount++;
+        totalLatencyNanos += nanos;
+    }
+    
+    public synchronized long getLastLatencyMicros() {
+        return lastLatencyNanos / 1000;
+    }
+    
+    // 稳态平均推理耗时（预热后的每次 predict）
+    public synchronized long getAverageLatencyMicros() {
+        return runCount == 0 ? 0 : totalLatencyNanos / runCount / 1000;
+    }
+    
+    public synchronized boolean isLoaded() {
+        return interpreter != null;
+    }
+    
+    private void ensureLoaded() throws IOException {
+        if (interpreter != null) return;
+        long t = Metrics.begin("model.readScaler");
+        try {
+            scaler = new MinMaxScaler(readFloatFromAsset("scaler_min.txt"), readFloatFromAsset("scaler_scale.txt"));
+        } finally {
+            Metrics.end("model.readScaler", t);
+        }
+        MappedByteBuffer model;
+        t = Metrics.begin("model.loadFile");
+        try {
+            model = loadModelFile();
+        } finally {
+            Metrics.end("model.loadFile", t);
+        }
+        t = Metrics.begin("model.newInterpreter");
+        try {
+            interpreter = new Interpreter(model);
+        } finally {
+            Metrics.end("model.newInterpreter", t);
+        }
+    }
+    
+    private float readFloatFromAsset(String file) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(appContext.getAssets().open(file)))) {
+            return Float.parseFloat(br.readLine().trim());
+        }
+    }
+    
+    private MappedByteBuffer loadModelFile() throws IOException {
+        try (AssetFileDescriptor fd = appContext.getAssets().openFd(MODEL_FILE);
+             FileInputStream in = new FileInputStream(fd.getFileDescriptor())) {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    fd.getStartOffset(),
+                    fd.getDeclaredLength());
+        }
+    }
+    
+    public synchronized void close() {
+        if (interpreter != null) {
+            interpreter.close();
+            interpreter = null;
+            batchSize = 1;
+        }
+    }
+}
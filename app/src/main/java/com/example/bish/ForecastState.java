@@ -0,0 +1,19 @@
+package com.example.bish;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// 每个用户持久化的 Holt-Winters 状态，已折叠到 lastDay（含）为止的 daily_totals
+// expenses 中 lastDay 及之前的记录发生变化时，触发器把 stale 置 1，下次使用前重建
+@Entity(tableName = "forecast_state")
+public class ForecastState {
+    @PrimaryKey
+    public int userId;
+
+    public long lastDay;       // 最后折叠的 epoch day
+    public int days;           // 已折叠的天数
+    public double level;       // 水平
+    public double trend;       // 趋势
+    public byte[] season;      // 7 个季节分量（double，小端）
+    public boolean stale;      // 历史数据已变化，需要重建
+}
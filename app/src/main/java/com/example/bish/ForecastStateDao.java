@@ -0,0 +1,15 @@
+package com.example.bish;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+@Dao
+public interface ForecastStateDao {
+    @Query("SELECT * FROM forecast_state WHERE userId = :userId")
+    ForecastState get(int userId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void save(ForecastState state);
+}
@@ -1,7 +1,6 @@
 package com.example.bish;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.EditText;
@@ -10,28 +9,20 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 public class LoginActivity extends AppCompatActivity {
     
     private EditText etUsername, etPassword;
     private Button btnLogin, btnRegister;
     private TextView tvMessage;
     private AppDatabase db;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
-    
-    // SharedPreferences 用于记住登录状态
-    private SharedPreferences sharedPreferences;
+    private final AppExecutors executors = AppExecutors.getInstance();
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         
         // 检查是否已经登录
-        sharedPreferences = getSharedPreferences("user_prefs", MODE_PRIVATE);
-        boolean isLoggedIn = sharedPreferences.getBoolean("is_logged_in", false);
-        if (isLoggedIn) {
+        if (UserSession.isLoggedIn(this)) {
             startActivity(new Intent(this, MainActivity.class));
             finish();
             return;
@@ -57,15 +48,12 @@ public class LoginActivity extends AppCompatActivity {
                 return;
             }
             
-            executor.execute(() -> {
-                int count = db.userDao().checkLogin(username, password);
-                runOnUiThread(() -> {
-                    if (count > 0) {
-                        // 登录成功，保存登录状态
-                        SharedPreferences.Editor editor = sharedPreferences.edit();
-                        editor.putBoolean("is_logged_in", true);
-                        editor.putString("current_username", username);
-                        editor.apply();
+            // 在读库通道按用户名点查，再到密码哈希通道校验；结果依赖密码，不参与请求合并
+            executors.read(this, null, () -> db.userDao().getUserByUsername(username), user -> {
+                executors.auth(this, null, () -> user != null && PasswordHasher.verify(user, password) ? user.id : null, userId -> {
+                    if (userId != null) {
+                        // 登录成功，保存登录状态和 userId
+                        UserSession.login(LoginActivity.this, userId, username);
                         
                         Toast.makeText(LoginActivity.this, "登录成功", Toast.LENGTH_SHORT).show();
                         startActivity(new Intent(LoginActivity.this, MainActivity.class));
@@ -97,35 +85,22 @@ public class LoginActivity extends AppCompatActivity {
                 return;
             }
             
-            executor.execute(() -> {
-                User existingUser = db.userDao().getUserByUsername(username);
-                runOnUiThread(() -> {
-                    if (existingUser != null) {
-                        tvMessage.setText("用户名已存在");
-                    } else {
-                        // 创建新用户
-                        User newUser = new User();
-                        newUser.username = username;
-                        newUser.password = password;
-                        newUser.createTime = System.currentTimeMillis();
-                        
-                        executor.execute(() -> {
-                            db.userDao().insert(newUser);
-                            runOnUiThread(() -> {
-                                Toast.makeText(LoginActivity.this, "注册成功，请登录", Toast.LENGTH_SHORT).show();
-                                tvMessage.setText("");
-                                etPassword.setText("");
-                            });
-                        });
-                    }
-                });
-            });
+            // 先在密码哈希通道加盐哈希，写库通道只做一次插入，重名由唯一索引拒绝
+            User newUser = new User();
+            newUser.username = username;
+            newUser.createTime = System.currentTimeMillis();
+            executors.auth(this, null, () -> {
+                PasswordHasher.setPassword(newUser, password);
+                return newUser;
+            }, hashed -> executors.write(this, () -> db.userDao().insertIfAbsent(hashed) != -1, created -> {
+                if (created) {
+                    Toast.makeText(LoginActivity.this, "注册成功，请登录", Toast.LENGTH_SHORT).show();
+                    tvMessage.setText("");
+                    etPassword.setText("");
+                } else {
+                    tvMessage.setText("用户名已存在");
+                }
+            }));
         });
     }
-    
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        executor.shutdown();
-    }
 }
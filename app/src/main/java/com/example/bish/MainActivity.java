@@ -1,35 +1,34 @@
 package com.example.bish;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.view.MenuItem;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 public class MainActivity extends AppCompatActivity {
     
-    private SharedPreferences sharedPreferences;
+    private static final String TAG_RECORD = "tab.record";
+    private static final String TAG_CHART = "tab.chart";
+    private static final String TAG_PREDICTION = "tab.prediction";
+    
     private BottomNavigationView bottomNavigationView;
     private FragmentManager fragmentManager;
     
-    private RecordFragment recordFragment;
-    private ChartFragment chartFragment;
-    private PredictionFragment predictionFragment;
+    // 当前显示的 Fragment；其余已创建的 Fragment 隐藏保留，切回时不重建视图、不重新加载
+    private Fragment current;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         
         // 检查登录状态
-        sharedPreferences = getSharedPreferences("user_prefs", MODE_PRIVATE);
-        boolean isLoggedIn = sharedPreferences.getBoolean("is_logged_in", false);
-        if (!isLoggedIn) {
+        if (!UserSession.isLoggedIn(this)) {
             startActivity(new Intent(this, LoginActivity.class));
             finish();
             return;
@@ -37,49 +36,71 @@ public class MainActivity extends AppCompatActivity {
         
         setContentView(R.layout.activity_main);
         
-        // 初始化 Fragment
-        recordFragment = new RecordFragment();
-        chartFragment = new ChartFragment();
-        predictionFragment = new PredictionFragment();
-        
         fragmentManager = getSupportFragmentManager();
         bottomNavigationView = findViewById(R.id.bottom_navigation);
         
-        // 设置默认选中第一个 Fragment
+        // 首次只创建记账页；重建时由 FragmentManager 恢复，找回当前显示的那个
         if (savedInstanceState == null) {
-            loadFragment(recordFragment);
-            bottomNavigationView.setSelectedItemId(R.id.nav_record);
+            showTab(R.id.nav_record);
+        } else {
+            for (Fragment f : fragmentManager.getFragments()) {
+                if (!f.isHidden()) current = f;
+            }
         }
         
         // 底部导航监听
-        bottomNavigationView.setOnItemSelectedListener(item -> {
-            int itemId = item.getItemId();
-            if (itemId == R.id.nav_record) {
-                loadFragment(recordFragment);
-                return true;
-            } else if (itemId == R.id.nav_chart) {
-                loadFragment(chartFragment);
-                return true;
-            } else if (itemId == R.id.nav_prediction) {
-                loadFragment(predictionFragment);
-                return true;
-            }
-            return false;
-        });
+        bottomNavigationView.setOnItemSelectedListener(item -> showTab(item.getItemId()));
     }
     
-    private void loadFragment(Fragment fragment) {
-        FragmentTransaction transaction = fragmentManager.beginTransaction();
-        transaction.replace(R.id.fragment_container, fragment);
+    // Fragment 在第一次切到对应页时才创建，之后用 show/hide 切换
+    private boolean showTab(int itemId) {
+        String tag;
+        if (itemId == R.id.nav_record) {
+            tag = TAG_RECORD;
+        } else if (itemId == R.id.nav_chart) {
+            tag = TAG_CHART;
+        } else if (itemId == R.id.nav_prediction) {
+            tag = TAG_PREDICTION;
+        } else {
+            return false;
+        }
+        
+        Fragment target = fragmentManager.findFragmentByTag(tag);
+        if (target != null && target == current) return true;
+        
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        if (current != null) {
+            // 隐藏的页停在 STARTED，仍接收数据变化，但不处于前台
+            transaction.hide(current).setMaxLifecycle(current, Lifecycle.State.STARTED);
+        }
+        if (target == null) {
+            target = createTab(tag);
+            transaction.add(R.id.fragment_container, target, tag);
+        } else {
+            transaction.show(target);
+        }
+        transaction.setMaxLifecycle(target, Lifecycle.State.RESUMED);
         transaction.commit();
+        current = target;
+        return true;
+    }
+    
+    private static Fragment createTab(String tag) {
+        switch (tag) {
+            case TAG_CHART:
+                return new ChartFragment();
+            case TAG_PREDICTION:
+                return new PredictionFragment();
+            default:
+                return new RecordFragment();
+        }
     }
     
     @Override
     protected void onResume() {
         super.onResume();
         // 再次检查登录状态
-        boolean isLoggedIn = sharedPreferences.getBoolean("is_logged_in", false);
-        if (!isLoggedIn) {
+        if (!UserSession.isLoggedIn(this)) {
             startActivity(new Intent(this, LoginActivity.class));
             finish();
         }
@@ -0,0 +1,147 @@
+package com.example.bish;
+
+import android.os.Trace;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 热点路径埋点：Trace 区段始终输出（未抓 trace 时系统开销可忽略），耗时直方图只在开启时记录
+// 用法：long t = Metrics.begin("dao.xxx"); try { ... } finally { Metrics.end("dao.xxx", t); }
+public final class Metrics {
+    
+    private static volatile boolean enabled;
+    private static final ConcurrentHashMap<String, Histogram> REGISTRY = new ConcurrentHashMap<>();
+    
+    private Metrics() {
+    }
+    
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+    
+    // 返回起始时间；未开启时返回 0，end() 据此跳过记录
+    public static long begin(String name) {
+        Trace.beginSection(name);
+        return enabled ? System.nanoTime() : 0;
+    }
+    
+    public static void end(String name, long start) {
+        Trace.endSection();
+        if (start != 0) record(name, System.nanoTime() - start);
+    }
+    
+    // 记录一个已测得的耗时（纳秒）
+    public static void record(String name, long nanos) {
+        if (!enabled) return;
+        Histogram h = REGISTRY.get(name);
+        if (h == null) {
+            h = new Histogram();
+            Histogram existing = REGISTRY.putIfAbsent(name, h);
+            if (existing != null) h = existing;
+        }
+        h.record(nanos);
+    }
+    
+    public static void reset() {
+        REGISTRY.clear();
+    }
+    
+    // 按名称排序的文本报告，单位毫秒
+    public static String report() {
+        List<String> names = new ArrayList<>(REGISTRY.keySet());
+        Collections.sort(names);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-32s %7s %9s %9s %9s %9s %9s%n",
+                "name", "count", "mean", "p50", "p95", "p99", "max"));
+        for (String name : names) {
+            Histogram h = REGISTRY.get(name);
+            if (h == null) continue;
+            long count = h.count();
+            if (count == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%-32s %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    name, count, h.sum() / 1e6 / count,
+                    h.percentile(0.50) / 1e6, h.percentile(0.95) / 1e6, h.percentile(0.99) / 1e6, h.max() / 1e6));
+        }
+        return sb.toString();
+    }
+    
+    public static void dumpTo(File file) throws IOException {
+        try (Writer w = new FileWriter(file)) {
+            w.write(report());
+        }
+    }
+    
+    // 对数分桶直方图：每个 2 的幂区间再分 4 个子桶，相对误差约 19%；无锁，记录为 O(1)
+    static final class Histogram {
+        private static final int SUB_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+        
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLongArray totals = new AtomicLongArray(3); // count, sum, max
+        
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(index(nanos));
+            totals.incrementAndGet(0);
+            totals.addAndGet(1, nanos);
+            long max;
+            while (nanos > (max = totals.get(2)) && !totals.compareAndSet(2, max, nanos)) {
+                // 重试
+            }
+        }
+        
+        long count() {
+            return totals.get(0);
+        }
+        
+        long sum() {
+            return totals.get(1);
+        }
+        
+        long max() {
+            return totals.get(2);
+        }
+        
+        // 返回所在桶的上界
+        long percentile(double q) {
+            long count = count();
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max());
+            }
+            return max();
+        }
+        
+        static int index(long v) {
+            if (v < SUB_BUCKETS) return (int) v;
+            int log2 = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (log2 - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (log2 - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+        
+        static long upperBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int log2 = index / SUB_BUCKETS + SUB_BITS - 1;
+            int sub = index % SUB_BUCKETS;
+            long base = 1L << log2;
+            long step = base >>> SUB_BITS;
+            return base + (sub + 1) * step - 1;
+        }
+    }
+}
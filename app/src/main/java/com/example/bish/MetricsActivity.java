@@ -0,0 +1,96 @@
+package com.example.bish;
+
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.HorizontalScrollView;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SwitchCompat;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+// 隐藏的调试页（长按预测结果进入）：开关耗时统计、查看 p50/p95/p99、导出到文件
+public class MetricsActivity extends AppCompatActivity {
+    
+    static final String PREFS = "debug_prefs";
+    static final String KEY_METRICS_ENABLED = "metrics_enabled";
+    
+    private TextView tvReport;
+    
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setTitle("性能统计");
+        
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(32, 32, 32, 32);
+        
+        SwitchCompat swEnabled = new SwitchCompat(this);
+        swEnabled.setText("记录耗时");
+        swEnabled.setChecked(Metrics.isEnabled());
+        swEnabled.setOnCheckedChangeListener((v, checked) -> {
+            Metrics.setEnabled(checked);
+            getSharedPreferences(PREFS, MODE_PRIVATE).edit().putBoolean(KEY_METRICS_ENABLED, checked).apply();
+        });
+        layout.addView(swEnabled);
+        
+        LinearLayout buttons = new LinearLayout(this);
+        buttons.setOrientation(LinearLayout.HORIZONTAL);
+        buttons.addView(newButton("刷新", this::refresh));
+        buttons.addView(newButton("清空", () -> {
+            Metrics.reset();
+            refresh();
+        }));
+        buttons.addView(newButton("导出", this::dump));
+        layout.addView(buttons);
+        
+        tvReport = new TextView(this);
+        tvReport.setTypeface(Typeface.MONOSPACE);
+        tvReport.setTextSize(11);
+        HorizontalScrollView hScroll = new HorizontalScrollView(this);
+        hScroll.addView(tvReport);
+        ScrollView scroll = new ScrollView(this);
+        scroll.addView(hScroll);
+        layout.addView(scroll, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 0, 1));
+        
+        setContentView(layout);
+        refresh();
+    }
+    
+    private Button newButton(String text, Runnable action) {
+        Button button = new Button(this);
+        button.setText(text);
+        button.setOnClickListener(v -> action.run());
+        button.setLayoutParams(new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.WRAP_CONTENT, 1));
+        return button;
+    }
+    
+    private void refresh() {
+        String report = Metrics.report() + "\n\n查询缓存：" + AppDatabase.getDatabase(this).expenseRepository().stats();
+        tvReport.setText(Metrics.isEnabled() ? report : "（统计未开启）\n\n" + report);
+    }
+    
+    // 写到应用专属外部目录，无需存储权限，可用 adb pull 取出
+    private void dump() {
+        String name = "metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date()) + ".txt";
+        File file = new File(getExternalFilesDir(null), name);
+        AppExecutors.getInstance().read(this, null, () -> {
+            try {
+                Metrics.dumpTo(file);
+                return file.getAbsolutePath();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }, path -> Toast.makeText(this, path == null ? "导出失败" : "已导出到 " + path, Toast.LENGTH_LONG).show());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bish;
+
+import androidx.room.Entity;
+
+// 按用户、月份、类别汇总的支出，由 expenses 表上的触发器维护，不直接写入
+// 图表按时间范围统计时，整月部分直接从这里取，不再扫描明细
+@Entity(tableName = "monthly_totals", primaryKeys = {"userId", "month", "categoryId"})
+public class MonthlyTotal {
+    public int userId;         // 所属用户 users.id
+    public int month;          // 本地时区的年月，如 202405
+    public int categoryId;     // categories.id
+    public long totalCents;    // 当月该类别总金额（分）
+    public int count;          // 当月该类别记录条数
+}
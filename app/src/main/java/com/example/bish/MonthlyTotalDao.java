@@ -0,0 +1,13 @@
+package com.example.bish;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface MonthlyTotalDao {
+    // [fromMonth, toMonth] 内按类别合计（主键 (userId, month, categoryId) 范围扫描，行数 = 月数 × 类别数）
+    @Query("SELECT categoryId, SUM(totalCents) AS totalCents, SUM(count) AS count FROM monthly_totals " +
+           "WHERE userId = :userId AND month BETWEEN :fromMonth AND :toMonth GROUP BY categoryId")
+    List<CategoryTotal> getCategoryTotals(int userId, int fromMonth, int toMonth);
+}
@@ -0,0 +1,57 @@
+package com.example.bish;
+
+import androidx.annotation.WorkerThread;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// PBKDF2-HMAC-SHA256 加盐哈希；每次计算约 100ms（中端机），只能在后台线程调用
+public final class PasswordHasher {
+    
+    // 迭代次数随用户一起保存，以后调高时旧账号仍能按原次数校验
+    public static final int ITERATIONS = 120_000;
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private PasswordHasher() {
+    }
+    
+    // 生成新盐并写入 user 的 salt / iterations / passwordHash
+    @WorkerThread
+    public static void setPassword(User user, String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        user.salt = Base64.getEncoder().encodeToString(salt);
+        user.iterations = ITERATIONS;
+        user.passwordHash = Base64.getEncoder().encodeToString(derive(password, salt, ITERATIONS));
+    }
+    
+    @WorkerThread
+    public static boolean verify(User user, String password) {
+        if (user.salt == null || user.passwordHash == null) return false;
+        byte[] expected = Base64.getDecoder().decode(user.passwordHash);
+        byte[] actual = derive(password, Base64.getDecoder().decode(user.salt), user.iterations);
+        // 常量时间比较
+        return MessageDigest.isEqual(expected, actual);
+    }
+    
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        long t = Metrics.begin("auth.pbkdf2");
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 不可用", e);
+        } finally {
+            Metrics.end("auth.pbkdf2", t);
+            spec.clearPassword();
+        }
+    }
+}
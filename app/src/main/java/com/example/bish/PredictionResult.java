@@ -0,0 +1,26 @@
+package com.example.bish;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// 每个用户持久化的最近一次预测结果，预测页打开时直接展示，不必等推理
+// dataVersion 由 expenses 上的触发器在金额、日期、类别变化时加一；resultVersion 是计算该结果时读到的版本
+// 两者不等，或结果不是今天算的（窗口截至今天），即视为过期
+@Entity(tableName = "prediction_results")
+public class PredictionResult {
+    @PrimaryKey
+    public int userId;
+
+    @ColumnInfo(defaultValue = "0")
+    public long dataVersion;   // 明细的数据版本
+    @ColumnInfo(defaultValue = "-1")
+    public long resultVersion; // 结果对应的数据版本，-1 表示尚未计算
+    @ColumnInfo(defaultValue = "0")
+    public long computedDay;   // 计算时的 epoch day
+
+    public String prediction;
+    public String outlook;
+    public String analysis;    // 含 SpendingAnalysis 的建议文字
+    public byte[] forecast;    // 逐日预测（float，小端），数据不足时为 null
+}
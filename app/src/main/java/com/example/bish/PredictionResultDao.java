@@ -0,0 +1,35 @@
+package com.example.bish;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+@Dao
+public interface PredictionResultDao {
+    @Query("SELECT * FROM prediction_results WHERE userId = :userId")
+    PredictionResult get(int userId);
+
+    // 只读数据版本，没有这一行（从未写过明细）时为 null
+    @Query("SELECT dataVersion FROM prediction_results WHERE userId = :userId")
+    Long dataVersion(int userId);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertIfAbsent(PredictionResult result);
+
+    // 只写结果列，不覆盖 dataVersion：计算期间触发器加过的版本保留下来，结果随即视为过期
+    @Query("UPDATE prediction_results SET resultVersion = :version, computedDay = :day, prediction = :prediction, "
+            + "outlook = :outlook, analysis = :analysis, forecast = :forecast WHERE userId = :userId")
+    void updateResult(int userId, long version, long day, String prediction, String outlook, String analysis, byte[] forecast);
+
+    @Transaction
+    default void saveResult(int userId, long version, long day, String prediction, String outlook, String analysis,
+                            byte[] forecast) {
+        PredictionResult row = new PredictionResult();
+        row.userId = userId;
+        row.resultVersion = -1;
+        insertIfAbsent(row);
+        updateResult(userId, version, day, prediction, outlook, analysis, forecast);
+    }
+}
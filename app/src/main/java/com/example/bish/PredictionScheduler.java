@@ -0,0 +1,86 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 预测结果的后台计算：每天一次（设备空闲且在充电时，首次排在凌晨 3 点之后），以及明细有实质变化后补算一次
+// 实质变化即 daily_totals / monthly_totals 被触发器改动（金额、日期、类别），只改备注不会触发
+// 补算任务从第一次变化起延迟 REFRESH_DELAY_MINUTES 执行，期间的后续变化不再重新排期
+public final class PredictionScheduler {
+    
+    private static final String NIGHTLY = "prediction.nightly";
+    private static final String REFRESH = "prediction.refresh";
+    private static final LocalTime NIGHTLY_AT = LocalTime.of(3, 0);
+    // 连续录入或导入时只在停下来之后算一次
+    private static final long REFRESH_DELAY_MINUTES = 10;
+    // 上一次排补算任务的时间（elapsedRealtime）；延迟期内任务必定还在排队，不再重复写 WorkManager 的库
+    private static final AtomicLong lastRefreshAt = new AtomicLong(Long.MIN_VALUE / 2);
+    
+    private PredictionScheduler() {
+    }
+    
+    // 应用启动时调用一次：排好每日任务，并监听汇总表的变化
+    public static void install(Context context, AppDatabase db) {
+        Context app = context.getApplicationContext();
+        scheduleNightly(app);
+        db.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("daily_totals", "monthly_totals") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                onDataChanged(app);
+            }
+        });
+    }
+    
+    // 已排期时保持原计划（KEEP），不会因每次启动而推迟
+    static void scheduleNightly(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(PredictionWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .setInitialDelay(untilNextRun(LocalDateTime.now()).toMinutes(), TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(NIGHTLY, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+    
+    // 在失效通知线程上调用，导入时每批一次：延迟期内直接返回；否则以 KEEP 排一次，已排队的任务保持原计时
+    // 任务开始后才到的变化由下一次变化或每日任务补上，预测页读到的持久化结果也会按数据版本标记为过期
+    static void onDataChanged(Context context) {
+        long now = SystemClock.elapsedRealtime();
+        long last = lastRefreshAt.get();
+        if (now - last < TimeUnit.MINUTES.toMillis(REFRESH_DELAY_MINUTES) || !lastRefreshAt.compareAndSet(last, now)) {
+            return;
+        }
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(PredictionWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(REFRESH_DELAY_MINUTES, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(REFRESH, ExistingWorkPolicy.KEEP, request);
+    }
+    
+    private static Duration untilNextRun(LocalDateTime now) {
+        LocalDateTime next = now.toLocalDate().atTime(NIGHTLY_AT);
+        if (!next.isAfter(now)) next = next.plusDays(1);
+        return Duration.between(now, next);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+// 后台跑一遍完整的预测流程并写入 prediction_results；结果仍有效时 refresh 只读一行就返回
+// 用户在运行时读取，切换账号后不需要重新排期
+public class PredictionWorker extends Worker {
+    
+    private static final String TAG = "PredictionWorker";
+    
+    public PredictionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+    
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        if (!UserSession.isLoggedIn(context)) return Result.success();
+        long t = Metrics.begin("prediction.worker");
+        try {
+            AppDatabase db = AppDatabase.getDatabase(context);
+            new ExpensePredictor(db, ForecastEngine.getInstance(context), UserSession.getUserId(context)).refresh(null);
+            return Result.success();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "后台预测失败", e);
+            return Result.retry();
+        } finally {
+            Metrics.end("prediction.worker", t);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bish;
+
+import androidx.annotation.WorkerThread;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 任意时间范围内按类别合计：范围内的完整月份从 monthly_totals 取，首尾不足一个月的部分
+// 用 (userId, date) 索引上的 BETWEEN 查询，扫描的明细最多约两个月，与历史长度无关
+public final class RangeTotals {
+    
+    private RangeTotals() {
+    }
+    
+    @WorkerThread
+    public static List<CategoryTotal> load(AppDatabase db, int userId, DateRange range) {
+        long t = Metrics.begin("chart.rangeTotals");
+        try {
+            // 图表在主线程按 categoryId 取名称，这里保证字典已载入
+            db.categoryCache().ensureLoaded();
+            return query(db, userId, range);
+        } finally {
+            Metrics.end("chart.rangeTotals", t);
+        }
+    }
+    
+    private static List<CategoryTotal> query(AppDatabase db, int userId, DateRange range) {
+        if (range.isAll()) {
+            return sorted(db.monthlyTotalDao().getCategoryTotals(userId, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        
+        // 第一个完整落在范围内的月份
+        YearMonth first = YearMonth.from(Instant.ofEpochMilli(range.start).atZone(zone));
+        while (monthStart(first, zone) < range.start) first = first.plusMonths(1);
+        // 最后一个完整落在范围内的月份
+        YearMonth last = YearMonth.from(Instant.ofEpochMilli(range.end).atZone(zone));
+        while (monthStart(last.plusMonths(1), zone) - 1 > range.end) last = last.minusMonths(1);
+        
+        if (first.isAfter(last)) {
+            return sorted(db.expenseDao().getCategoryTotalsBetween(userId, range.start, range.end));
+        }
+        
+        Map<Integer, CategoryTotal> merged = new HashMap<>();
+        merge(merged, db.monthlyTotalDao().getCategoryTotals(userId, monthKey(first), monthKey(last)));
+        long headEnd = monthStart(first, zone) - 1;
+        if (range.start <= headEnd) {
+            merge(merged, db.expenseDao().getCategoryTotalsBetween(userId, range.start, headEnd));
+        }
+        long tailStart = monthStart(last.plusMonths(1), zone);
+        if (tailStart <= range.end) {
+            merge(merged, db.expenseDao().getCategoryTotalsBetween(userId, tailStart, range.end));
+        }
+        return sorted(new ArrayList<>(merged.values()));
+    }
+    
+    static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+    
+    private static long monthStart(YearMonth month, ZoneId zone) {
+        return month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+    
+    private static void merge(Map<Integer, CategoryTotal> into, List<CategoryTotal> rows) {
+        for (CategoryTotal row : rows) {
+            CategoryTotal t = into.get(row.categoryId);
+            if (t == null) {
+                into.put(row.categoryId, row);
+            } else {
+                t.totalCents += row.totalCents;
+                t.count += row.count;
+            }
+        }
+    }
+    
+    private static List<CategoryTotal> sorted(List<CategoryTotal> rows) {
+        rows.sort((a, b) -> Long.compare(b.totalCents, a.totalCents));
+        return rows;
+    }
+}
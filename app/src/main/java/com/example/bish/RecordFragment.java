@@ -1,26 +1,44 @@
 package com.example.bish;
 
+import android.content.Context;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.DatePicker;
 import android.widget.EditText;
 import android.widget.LinearLayout;
-import android.widget.ListView;
+import android.widget.ProgressBar;
+import android.widget.RadioButton;
+import android.widget.RadioGroup;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.TimePicker;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.bish.core.Money;
+
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -28,10 +46,30 @@ import java.util.Locale;
 
 public class RecordFragment extends Fragment {
     
+    // 距列表末尾还剩多少条时预取下一页
+    private static final int PREFETCH_DISTANCE = 10;
+    // 输入停顿这么久才发起搜索
+    private static final long SEARCH_DELAY_MS = 300;
+    
     private AppDatabase db;
-    private ArrayAdapter<String> adapter;
-    private List<Expense> expenseList;
-    private ListView listView;
+    private AppExecutors executors;
+    private int userId;
+    private ExpenseAdapter adapter;
+    private ExpensePager pager;
+    private RecyclerView recyclerView;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private String searchText = "";
+    
+    // 选择要导入的 CSV / 账单文件
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importFrom);
+    
+    // 选择导出文件位置；导出参数在弹出选择器前确定
+    private final ActivityResultLauncher<String> exportLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("*/*"), this::exportTo);
+    private DateRange exportRange;
+    private ExpenseExporter.Format exportFormat;
+    private boolean exportGzip;
     
     @Nullable
     @Override
@@ -39,57 +77,227 @@ public class RecordFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_record, container, false);
         
         db = AppDatabase.getDatabase(getContext());
-        expenseList = new ArrayList<>();
-        adapter = new ArrayAdapter<>(getContext(), android.R.layout.simple_list_item_2, android.R.id.text1, new ArrayList<>());
-        listView = view.findViewById(R.id.listView);
-        listView.setAdapter(adapter);
+        executors = AppExecutors.getInstance();
+        userId = UserSession.getUserId(requireContext());
+        pager = new ExpensePager(db.expenseDao(), db.categoryCache(), userId);
+        adapter = new ExpenseAdapter(db.categoryCache());
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView = view.findViewById(R.id.recyclerView);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.addItemDecoration(new DividerItemDecoration(getContext(), DividerItemDecoration.VERTICAL));
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || pager.isEndReached()) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    executors.read(getViewLifecycleOwner(), "records.nextPage", pager::loadNextPage, RecordFragment.this::submit);
+                }
+            }
+        });
         
         Button btnAdd = view.findViewById(R.id.btnAdd);
         btnAdd.setOnClickListener(v -> showAddDialog());
         
+        Button btnImport = view.findViewById(R.id.btnImport);
+        btnImport.setOnClickListener(v -> importLauncher.launch(new String[]{"text/*", "application/vnd.ms-excel"}));
+        
+        Button btnExport = view.findViewById(R.id.btnExport);
+        btnExport.setOnClickListener(v -> showExportDialog());
+        
+        setupItemDelete();
+        setupSearch(view.findViewById(R.id.etSearch));
+        
+        // 首次加载第一页；之后 expenses 表变化只重新读取已加载范围，由 DiffUtil 算出变化的行
         loadData();
-        setupListViewDelete();
+        TableChangeObserver.observe(db, getViewLifecycleOwner(), this::reloadData, "expenses");
         
         return view;
     }
     
     private void loadData() {
-        new Thread(() -> {
-            expenseList = db.expenseDao().getAllExpenses();
-            if (getActivity() != null) {
-                getActivity().runOnUiThread(() -> {
-                    adapter.clear();
-                    SimpleDateFormat sdf = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault());
-                    for (Expense e : expenseList) {
-                        String line1 = String.format("%.2f 元 | %s", e.amount, e.category);
-                        String line2 = (e.note.isEmpty() ? "" : e.note + " | ") + sdf.format(new Date(e.date));
-                        adapter.add(line1 + "\n" + line2);
-                    }
-                });
+        executors.read(getViewLifecycleOwner(), "records.refresh", pager::refresh, this::submit);
+    }
+    
+    private void reloadData() {
+        executors.read(getViewLifecycleOwner(), "records.reload", pager::reload, this::submit);
+    }
+    
+    // 每次搜索词不同，不按 key 合并；pager 内部丢弃被新搜索词取代的结果
+    private void setupSearch(EditText etSearch) {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
             }
-        }).start();
+            
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+            
+            @Override
+            public void afterTextChanged(Editable s) {
+                String text = s.toString().trim();
+                searchHandler.removeCallbacksAndMessages(null);
+                if (text.equals(searchText)) return;
+                searchHandler.postDelayed(() -> {
+                    searchText = text;
+                    executors.read(getViewLifecycleOwner(), null, () -> pager.search(text), snapshot -> {
+                        submit(snapshot);
+                        recyclerView.scrollToPosition(0);
+                    });
+                }, SEARCH_DELAY_MS);
+            }
+        });
     }
     
-    private void setupListViewDelete() {
-        listView.setOnItemLongClickListener((parent, view, position, id) -> {
-            Expense expense = expenseList.get(position);
+    @Override
+    public void onDestroyView() {
+        searchHandler.removeCallbacksAndMessages(null);
+        super.onDestroyView();
+    }
+    
+    // ListAdapter 在后台线程做差异比较，只重绘变化的行
+    private void submit(List<Expense> snapshot) {
+        if (snapshot != null) {
+            adapter.submitList(snapshot);
+        }
+    }
+    
+    private void setupItemDelete() {
+        adapter.setOnItemLongClickListener(expense -> {
             new AlertDialog.Builder(getContext())
                     .setTitle("删除记录")
-                    .setMessage("确定要删除这条记录吗？\n" + String.format("%.2f 元 - %s", expense.amount, expense.category))
+                    .setMessage("确定要删除这条记录吗？\n" + Money.format(expense.amountCents) + " 元 - " + db.categoryCache().name(expense.categoryId))
                     .setPositiveButton("删除", (dialog, which) -> {
-                        new Thread(() -> {
-                            db.expenseDao().delete(expense);
-                            if (getActivity() != null) {
-                                getActivity().runOnUiThread(this::loadData);
-                            }
-                        }).start();
+                        executors.write(getViewLifecycleOwner(), () -> {
+                            db.expenseRepository().delete(expense);
+                            return null;
+                        }, null);
                     })
                     .setNegativeButton("取消", null)
                     .show();
-            return true;
         });
     }
     
+    private void importFrom(Uri uri) {
+        if (uri == null) return;
+        
+        LinearLayout layout = new LinearLayout(getContext());
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(50, 20, 50, 0);
+        
+        ProgressBar progressBar = new ProgressBar(getContext(), null, android.R.attr.progressBarStyleHorizontal);
+        progressBar.setMax(1000);
+        layout.addView(progressBar);
+        
+        TextView tvProgress = new TextView(getContext());
+        tvProgress.setText("已导入 0 条");
+        layout.addView(tvProgress);
+        
+        AlertDialog dialog = new AlertDialog.Builder(getContext())
+                .setTitle("正在导入")
+                .setView(layout)
+                .setCancelable(false)
+                .show();
+        
+        // 进度在每批写入后回调；列表刷新交给 expenses 表的失效通知
+        Context appContext = requireContext().getApplicationContext();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        ExpenseImporter.ProgressListener listener = (bytesRead, totalBytes, imported) -> mainHandler.post(() -> {
+            if (totalBytes > 0) {
+                progressBar.setProgress((int) (bytesRead * 1000 / totalBytes));
+            } else {
+                progressBar.setIndeterminate(true);
+            }
+            tvProgress.setText("已导入 " + imported + " 条");
+        });
+        
+        executors.write(getViewLifecycleOwner(), () -> {
+            try {
+                return db.expenseRepository().importCsv(appContext, uri, userId, listener);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                return null;
+            }
+        }, result -> {
+            dialog.dismiss();
+            if (result == null) {
+                Toast.makeText(getContext(), "导入失败，请检查文件格式（需包含金额和日期列）", Toast.LENGTH_LONG).show();
+                return;
+            }
+            Toast.makeText(getContext(), String.format(Locale.getDefault(), "导入 %d 条，跳过 %d 条，%d 条/秒",
+                    result.imported, result.skipped, result.rowsPerSecond()), Toast.LENGTH_LONG).show();
+        });
+    }
+    
+    private void showExportDialog() {
+        DateRange[] ranges = {DateRange.all(), DateRange.thisMonth(), DateRange.lastDays(90), DateRange.thisYear()};
+        String[] rangeLabels = new String[ranges.length];
+        for (int i = 0; i < ranges.length; i++) rangeLabels[i] = ranges[i].label;
+        
+        LinearLayout layout = new LinearLayout(getContext());
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(50, 20, 50, 0);
+        
+        Spinner spRange = new Spinner(getContext());
+        spRange.setAdapter(new ArrayAdapter<>(requireContext(),
+                android.R.layout.simple_spinner_dropdown_item, rangeLabels));
+        layout.addView(spRange);
+        
+        RadioGroup rgFormat = new RadioGroup(getContext());
+        RadioButton rbCsv = new RadioButton(getContext());
+        rbCsv.setText("CSV");
+        rbCsv.setId(View.generateViewId());
+        RadioButton rbJson = new RadioButton(getContext());
+        rbJson.setText("JSON Lines");
+        rbJson.setId(View.generateViewId());
+        rgFormat.addView(rbCsv);
+        rgFormat.addView(rbJson);
+        rgFormat.check(rbCsv.getId());
+        layout.addView(rgFormat);
+        
+        CheckBox cbGzip = new CheckBox(getContext());
+        cbGzip.setText("gzip 压缩");
+        layout.addView(cbGzip);
+        
+        new AlertDialog.Builder(getContext())
+                .setTitle("导出记录")
+                .setView(layout)
+                .setPositiveButton("选择位置", (dialog, which) -> {
+                    exportRange = ranges[spRange.getSelectedItemPosition()];
+                    exportFormat = rgFormat.getCheckedRadioButtonId() == rbJson.getId()
+                            ? ExpenseExporter.Format.JSON_LINES : ExpenseExporter.Format.CSV;
+                    exportGzip = cbGzip.isChecked();
+                    String name = "expenses." + exportFormat.extension + (exportGzip ? ".gz" : "");
+                    exportLauncher.launch(name);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+    
+    private void exportTo(Uri uri) {
+        if (uri == null || exportRange == null) return;
+        DateRange range = exportRange;
+        ExpenseExporter.Format format = exportFormat;
+        boolean gzip = exportGzip;
+        Context appContext = requireContext().getApplicationContext();
+        
+        Toast.makeText(getContext(), "正在导出…", Toast.LENGTH_SHORT).show();
+        // 只读游标，放在读库通道；不合并也不随界面销毁取消
+        executors.read(getViewLifecycleOwner(), null, () -> {
+            long start = System.currentTimeMillis();
+            try (OutputStream out = appContext.getContentResolver().openOutputStream(uri)) {
+                if (out == null) return null;
+                int rows = new ExpenseExporter(db.expenseDao(), userId).export(range, format, gzip, out, null);
+                return String.format(Locale.getDefault(), "已导出 %d 条，用时 %d ms", rows, System.currentTimeMillis() - start);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                return null;
+            }
+        }, message -> Toast.makeText(getContext(), message == null ? "导出失败" : message, Toast.LENGTH_LONG).show());
+    }
+    
     private void showAddDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(getContext());
         builder.setTitle("添加记账");
@@ -103,9 +311,18 @@ public class RecordFragment extends Fragment {
         etAmount.setInputType(android.text.InputType.TYPE_CLASS_NUMBER | android.text.InputType.TYPE_NUMBER_FLAG_DECIMAL);
         layout.addView(etAmount);
         
-        EditText etCategory = new EditText(getContext());
+        // 类别可从已有类别中选（常用的在前），也可直接输入新类别
+        AutoCompleteTextView etCategory = new AutoCompleteTextView(getContext());
         etCategory.setHint("类别（如 餐饮）");
+        etCategory.setThreshold(1);
+        etCategory.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus && etCategory.getAdapter() != null) etCategory.showDropDown();
+        });
         layout.addView(etCategory);
+        executors.read(getViewLifecycleOwner(), "records.categoryNames",
+                () -> db.categoryCache().namesByUsage(userId),
+                names -> etCategory.setAdapter(new ArrayAdapter<>(etCategory.getContext(),
+                        android.R.layout.simple_dropdown_item_1line, names)));
         
         EditText etNote = new EditText(getContext());
         etNote.setHint("备注（可选）");
@@ -141,8 +358,8 @@ public class RecordFragment extends Fragment {
             }
             
             try {
-                double amount = Double.parseDouble(amountStr);
-                if (amount <= 0) {
+                long amountCents = Money.parseCents(amountStr);
+                if (amountCents <= 0) {
                     Toast.makeText(getContext(), "金额必须大于 0", Toast.LENGTH_SHORT).show();
                     return;
                 }
@@ -166,17 +383,16 @@ public class RecordFragment extends Fragment {
                 }
                 
                 Expense e = new Expense();
-                e.amount = amount;
-                e.category = category;
+                e.userId = userId;
+                e.amountCents = amountCents;
                 e.note = note;
                 e.date = selectedTime;
                 
-                new Thread(() -> {
-                    db.expenseDao().insert(e);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(this::loadData);
-                    }
-                }).start();
+                executors.write(getViewLifecycleOwner(), () -> {
+                    e.categoryId = db.categoryCache().idFor(userId, category);
+                    db.expenseRepository().insert(e);
+                    return null;
+                }, null);
                 
             } catch (NumberFormatException ex) {
                 Toast.makeText(getContext(), "请输入有效数字", Toast.LENGTH_SHORT).show();
@@ -225,10 +441,4 @@ public class RecordFragment extends Fragment {
         timeBuilder.setNegativeButton("取消", null);
         timeBuilder.show();
     }
-    
-    @Override
-    public void onResume() {
-        super.onResume();
-        loadData();
-    }
 }
@@ -0,0 +1,50 @@
+package com.example.bish;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.room.InvalidationTracker;
+
+import java.util.Set;
+
+// 在 owner 存活期间监听 Room 的表失效通知，并在主线程回调
+public class TableChangeObserver extends InvalidationTracker.Observer implements DefaultLifecycleObserver {
+    
+    public interface Listener {
+        void onTablesChanged();
+    }
+    
+    private final AppDatabase db;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    
+    private TableChangeObserver(AppDatabase db, Listener listener, String... tables) {
+        super(tables);
+        this.db = db;
+        this.listener = listener;
+    }
+    
+    public static void observe(AppDatabase db, LifecycleOwner owner, Listener listener, String... tables) {
+        owner.getLifecycle().addObserver(new TableChangeObserver(db, listener, tables));
+    }
+    
+    @Override
+    public void onCreate(@NonNull LifecycleOwner owner) {
+        db.getInvalidationTracker().addObserver(this);
+    }
+    
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        db.getInvalidationTracker().removeObserver(this);
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+    
+    // Room 在后台线程调用
+    @Override
+    public void onInvalidated(@NonNull Set<String> tables) {
+        mainHandler.post(listener::onTablesChanged);
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.bish;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "users")
+// username 唯一索引：登录是一次索引点查，并发注册也不会产生重名账号
+@Entity(tableName = "users", indices = {@Index(value = "username", unique = true)})
 public class User {
     @PrimaryKey(autoGenerate = true)
     public int id;
     
     public String username;      // 用户名
-    public String password;      // 密码（实际项目中应该加密存储）
+    public String passwordHash;  // PBKDF2 哈希（Base64），见 PasswordHasher
+    public String salt;          // 随机盐（Base64）
+    public int iterations;       // 计算哈希时的迭代次数
     public long createTime;      // 创建时间戳
 }
@@ -3,23 +3,23 @@ package com.example.bish;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import java.util.List;
 
 @Dao
 public interface UserDao {
-    @Insert
-    void insert(User user);
+    // 注册：单条 INSERT，用户名已存在时由唯一索引拒绝并返回 -1，不需要先查再插
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertIfAbsent(User user);
     
     @Delete
     void delete(User user);
     
+    // 走 username 唯一索引的点查，耗时与用户数无关
     @Query("SELECT * FROM users WHERE username = :username")
     User getUserByUsername(String username);
     
     @Query("SELECT * FROM users ORDER BY createTime DESC")
     List<User> getAllUsers();
-    
-    @Query("SELECT COUNT(*) FROM users WHERE username = :username AND password = :password")
-    int checkLogin(String username, String password);
 }
@@ -0,0 +1,38 @@
+package com.example.bish;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+// 当前登录用户，保存在 user_prefs 中；各界面的查询都以这里的 userId 为条件
+public final class UserSession {
+    
+    private static final String PREFS = "user_prefs";
+    private static final String KEY_LOGGED_IN = "is_logged_in";
+    private static final String KEY_USERNAME = "current_username";
+    private static final String KEY_USER_ID = "current_user_id";
+    
+    private UserSession() {
+    }
+    
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+    
+    // 旧版本只记录了用户名，没有 userId 时视为未登录，重新登录一次即可
+    public static boolean isLoggedIn(Context context) {
+        SharedPreferences p = prefs(context);
+        return p.getBoolean(KEY_LOGGED_IN, false) && p.getInt(KEY_USER_ID, -1) >= 0;
+    }
+    
+    public static int getUserId(Context context) {
+        return prefs(context).getInt(KEY_USER_ID, -1);
+    }
+    
+    public static void login(Context context, int userId, String username) {
+        prefs(context).edit()
+                .putBoolean(KEY_LOGGED_IN, true)
+                .putString(KEY_USERNAME, username)
+                .putInt(KEY_USER_ID, userId)
+                .apply();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bish;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+// 缓存与写入交错：加载读到的可能是写入提交前的快照，这样的结果不能存成新版本
+// 只走 cached / beginWrite / endWrite，不需要数据库
+public class ExpenseRepositoryTest {
+
+    private static final int USER_ID = 1;
+
+    private final ExpenseRepository repo = new ExpenseRepository(null);
+
+    private String load(String value) {
+        return repo.cached("test", USER_ID, 0, 100, () -> value);
+    }
+
+    @Test
+    public void unchangedData_hitsCache() {
+        assertEquals("a", load("a"));
+        assertEquals("a", load("b"));
+    }
+
+    // 加载在 beginWrite 之后开始，写入在加载返回前提交并结束
+    @Test
+    public void loadStartedDuringWrite_isNotCached() {
+        repo.beginWrite(USER_ID, 50, 50);
+        String value = repo.cached("test", USER_ID, 0, 100, () -> {
+            repo.endWrite();
+            return "before";
+        });
+        assertEquals("before", value);
+        assertEquals("after", load("after"));
+    }
+
+    // 加载开始时没有写入，加载期间一次写入开始并结束
+    @Test
+    public void writeDuringLoad_isNotCached() {
+        String value = repo.cached("test", USER_ID, 0, 100, () -> {
+            repo.beginWrite(USER_ID, 50, 50);
+            repo.endWrite();
+            return "before";
+        });
+        assertEquals("before", value);
+        assertEquals("after", load("after"));
+    }
+
+    // 写入日期不在条目范围内，条目顺延到新版本继续命中
+    @Test
+    public void writeOutsideRange_keepsEntry() {
+        load("a");
+        repo.beginWrite(USER_ID, 500, 500);
+        repo.endWrite();
+        assertEquals("a", load("b"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bish.benchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+// 宏基准公共步骤：确保已登录、切换底部导航
+final class BenchmarkUtils {
+    
+    static final String PACKAGE = "com.example.bish";
+    
+    private static final String USERNAME = "bench_user";
+    private static final String PASSWORD = "bench_pass";
+    private static final long TIMEOUT_MS = 5_000;
+    
+    private BenchmarkUtils() {
+    }
+    
+    // 启动应用；停在登录页时注册并登录基准测试账号
+    static void launchLoggedIn(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        UiDevice device = scope.getDevice();
+        if (device.wait(Until.hasObject(By.res(PACKAGE, "bottom_navigation")), TIMEOUT_MS)) return;
+        
+        UiObject2 username = device.findObject(By.res(PACKAGE, "etUsername"));
+        if (username == null) {
+            throw new IllegalStateException("既不在主界面也不在登录页");
+        }
+        username.setText(USERNAME);
+        device.findObject(By.res(PACKAGE, "etPassword")).setText(PASSWORD);
+        // 账号已存在时注册会提示失败，不影响后续登录
+        device.findObject(By.res(PACKAGE, "btnRegister")).click();
+        device.waitForIdle();
+        
+        // 注册是异步写入，登录失败时重试几次
+        for (int i = 0; i < 3; i++) {
+            device.findObject(By.res(PACKAGE, "btnLogin")).click();
+            if (device.wait(Until.hasObject(By.res(PACKAGE, "bottom_navigation")), TIMEOUT_MS)) return;
+        }
+        throw new IllegalStateException("基准测试账号登录失败");
+    }
+    
+    // 点击底部导航中标题为 title 的标签并等待界面空闲
+    static void selectTab(UiDevice device, String title) {
+        device.findObject(By.res(PACKAGE, "bottom_navigation"))
+                .findObject(By.text(title))
+                .click();
+        device.waitForIdle();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bish.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import kotlin.Unit;
+
+// 点击预测按钮到结果显示的完整一次预测
+@RunWith(AndroidJUnit4.class)
+public class PredictBenchmark {
+    
+    private static final Pattern RESULT = Pattern.compile("^(?!点击上方按钮进行预测$).+");
+    
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+    
+    @Test
+    public void predictOnce() {
+        List<Metric> metrics = Arrays.asList(
+                new TraceSectionMetric("prediction.compute"),
+                new FrameTimingMetric());
+        rule.measureRepeated(
+                BenchmarkUtils.PACKAGE,
+                metrics,
+                CompilationMode.DEFAULT,
+                null,
+                10,
+                scope -> {
+                    // 每次重启进程，保证结果文本是初始状态
+                    scope.killProcess();
+                    BenchmarkUtils.launchLoggedIn(scope);
+                    BenchmarkUtils.selectTab(scope.getDevice(), "预测");
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    device.findObject(By.res(BenchmarkUtils.PACKAGE, "btnPredict")).click();
+                    device.wait(Until.hasObject(By.res(BenchmarkUtils.PACKAGE, "tvPrediction").text(RESULT)), 10_000);
+                    return Unit.INSTANCE;
+                });
+    }
+}
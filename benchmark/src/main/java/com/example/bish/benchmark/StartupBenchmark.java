@@ -0,0 +1,42 @@
+package com.example.bish.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// MainActivity 冷启动（已登录状态，经 LoginActivity 跳转）
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+    
+    @Test
+    public void coldStart() {
+        rule.measureRepeated(
+                BenchmarkUtils.PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.COLD,
+                10,
+                scope -> {
+                    BenchmarkUtils.launchLoggedIn(scope);
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
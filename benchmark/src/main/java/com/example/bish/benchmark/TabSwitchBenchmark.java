@@ -0,0 +1,46 @@
+package com.example.bish.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// 在记账 / 图表 / 预测三个标签间来回切换的帧耗时
+@RunWith(AndroidJUnit4.class)
+public class TabSwitchBenchmark {
+    
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+    
+    @Test
+    public void switchTabs() {
+        rule.measureRepeated(
+                BenchmarkUtils.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                null,
+                5,
+                scope -> {
+                    BenchmarkUtils.launchLoggedIn(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    for (int i = 0; i < 3; i++) {
+                        BenchmarkUtils.selectTab(device, "图表");
+                        BenchmarkUtils.selectTab(device, "预测");
+                        BenchmarkUtils.selectTab(device, "记账");
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.bish.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分析热点在 10k / 1M / 10M 条合成明细上的吞吐量，配合 gc profiler 看分配率。
+ * 明细为 3 年内按时间升序的记录，20 个类别，金额 1 ~ 500 元，与设备上的 ExpenseDaoBenchmark 数据分布一致。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnalyticsBenchmark {
+
+    private static final int CATEGORIES = 20;
+    private static final int SPAN_DAYS = 3 * 365;
+    private static final int WINDOW = 30;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private final ZoneId zone = ZoneId.of("Asia/Shanghai");
+    private ExpenseColumns columns;
+    private long firstDay;
+    private long lastDay;
+    private long[] totals;
+    private DailySeries daily;
+    private double[] window;
+    private MinMaxScaler scaler;
+    private float[] normalized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDays localDays = new LocalDays(zone);
+        lastDay = LocalDate.of(2025, 6, 30).toEpochDay();
+        firstDay = lastDay - SPAN_DAYS + 1;
+        long start = localDays.startOfDay(firstDay);
+        long span = localDays.startOfDay(lastDay + 1) - start;
+        columns = new ExpenseColumns(rows);
+        // 时间戳等间隔加抖动，保持升序
+        long step = span / rows;
+        for (int i = 0; i < rows; i++) {
+            long date = start + i * step + (step > 1 ? (long) (random.nextDouble() * (step - 1)) : 0);
+            columns.add(date, 100 + random.nextInt(50_000), random.nextInt(CATEGORIES));
+        }
+        daily = DailySeries.bucket(columns.dates, columns.amountCents, columns.size, localDays, firstDay, lastDay);
+        window = daily.window(lastDay, new double[WINDOW]);
+        scaler = new MinMaxScaler(0f, 500f);
+        normalized = new float[WINDOW];
+    }
+
+    // 图表：按类别合计，结果数组复用
+    @Benchmark
+    public long[] totalsByCategory() {
+        totals = columns.totalsByCategory(totals);
+        return totals;
+    }
+
+    // 分类预测输入：最近 30 天按类别拆成日序列（仍需扫描全部行）
+    @Benchmark
+    public ExpenseColumns.CategorySeries dailyByCategory() {
+        return columns.dailyByCategory(new LocalDays(zone), lastDay - WINDOW + 1, WINDOW);
+    }
+
+    // 明细按 epoch day 归到自然日
+    @Benchmark
+    public DailySeries bucketByEpochDay() {
+        return DailySeries.bucket(columns.dates, columns.amountCents, columns.size, new LocalDays(zone), firstDay, lastDay);
+    }
+
+    // 对照：按 yyyy-MM-dd 字符串归并到 TreeMap 的旧做法
+    @Benchmark
+    public Map<String, Long> bucketByDateString() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+        sdf.setTimeZone(TimeZone.getTimeZone(zone));
+        Map<String, Long> byDay = new TreeMap<>();
+        for (int i = 0; i < columns.size; i++) {
+            byDay.merge(sdf.format(new Date(columns.dates[i])), columns.amountCents[i], Long::sum);
+        }
+        return byDay;
+    }
+
+    // 以下只与天数有关（约 1100 天），与行数无关
+
+    @Benchmark
+    public DailySeries rollingMean7() {
+        return daily.rollingMean(7);
+    }
+
+    @Benchmark
+    public DailySeries.Resampled resampleWeekly() {
+        return daily.weekly();
+    }
+
+    @Benchmark
+    public DailySeries.Resampled resampleMonthly() {
+        return daily.monthly();
+    }
+
+    // Holt-Winters 从头折叠全部日期（forecast_state 失效后的重建）
+    @Benchmark
+    public double holtWintersRebuild() {
+        HoltWinters model = new HoltWinters();
+        for (long day = firstDay; day <= lastDay; day++) model.update(day, daily.get(day));
+        return model.forecast(1);
+    }
+
+    @Benchmark
+    public float[] normalizeWindow() {
+        scaler.normalize(window, normalized, 0);
+        return normalized;
+    }
+
+    @Benchmark
+    public String analysisText() {
+        return SpendingAnalysis.analysis(window, (float) daily.mean(lastDay, 7));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.bish.core;
+
+import java.time.LocalDate;
+
+// 以 epoch day 为下标的连续日序列：values[i] 是 firstDay + i 当天的支出（元），没有支出的日子为 0
+// 日期只做整数运算，不经过字符串格式化；模型输入、滚动均值和按周 / 按月重采样共用这一份数据
+public final class DailySeries {
+
+    private final long firstDay;
+    private final double[] values;
+
+    private DailySeries(long firstDay, double[] values) {
+        this.firstDay = firstDay;
+        this.values = values;
+    }
+
+    // 按日合计（如 daily_totals，只有有支出的日子，days[i] 与 totalCents[i] 对应）补齐为 [firstDay, lastDay] 的连续序列
+    public static DailySeries fromDailyTotals(long[] days, long[] totalCents, int size, long firstDay, long lastDay) {
+        double[] values = new double[length(firstDay, lastDay)];
+        for (int i = 0; i < size; i++) {
+            long index = days[i] - firstDay;
+            if (index < 0 || index >= values.length) continue;
+            values[(int) index] += Money.toYuan(totalCents[i]);
+        }
+        return new DailySeries(firstDay, values);
+    }
+
+    // 明细按 localDays 的时区归到自然日后累加；dates 按时间升序时时区规则只在夏令时切换处查询
+    public static DailySeries bucket(long[] dates, long[] amountCents, int size,
+                                     LocalDays localDays, long firstDay, long lastDay) {
+        long[] cents = new long[length(firstDay, lastDay)];
+        for (int i = 0; i < size; i++) {
+            long index = localDays.epochDay(dates[i]) - firstDay;
+            if (index < 0 || index >= cents.length) continue;
+            cents[(int) index] += amountCents[i];
+        }
+        double[] values = new double[cents.length];
+        for (int i = 0; i < cents.length; i++) values[i] = Money.toYuan(cents[i]);
+        return new DailySeries(firstDay, values);
+    }
+
+    private static int length(long firstDay, long lastDay) {
+        if (lastDay < firstDay) return 0;
+        return Math.toIntExact(lastDay - firstDay + 1);
+    }
+
+    public long firstDay() {
+        return firstDay;
+    }
+
+    public long lastDay() {
+        return firstDay + values.length - 1;
+    }
+
+    public int length() {
+        return values.length;
+    }
+
+    // 序列范围外的日期视为 0
+    public double get(long day) {
+        long index = day - firstDay;
+        return index < 0 || index >= values.length ? 0 : values[(int) index];
+    }
+
+    // 截至 endDay（含）的最近 out.length 天按时间升序写入 out，超出序列范围的部分补 0
+    public double[] window(long endDay, double[] out) {
+        long start = endDay - out.length + 1;
+        for (int i = 0; i < out.length; i++) out[i] = get(start + i);
+        return out;
+    }
+
+    // [fromDay, toDay] 内的合计
+    public double sum(long fromDay, long toDay) {
+        double sum = 0;
+        long from = Math.max(fromDay, firstDay);
+        long to = Math.min(toDay, lastDay());
+        for (long day = from; day <= to; day++) sum += values[(int) (day - firstDay)];
+        return sum;
+    }
+
+    // 截至 endDay 的最近 days 个自然日的日均，空白日按 0 计入
+    public double mean(long endDay, int days) {
+        return sum(endDay - days + 1, endDay) / days;
+    }
+
+    // 滚动日均：结果第 i 天为截至该天的最近 days 天的日均，序列开头不足 days 天的部分同样按 0 补齐
+    public DailySeries rollingMean(int days) {
+        double[] out = new double[values.length];
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            if (i >= days) sum -= values[i - days];
+            out[i] = sum / days;
+        }
+        return new DailySeries(firstDay, out);
+    }
+
+    // 按周（周一开始）合计；首尾不完整的周只包含序列内的日子
+    public Resampled weekly() {
+        if (values.length == 0) return Resampled.EMPTY;
+        // epoch day 0（1970-01-01）是周四，+3 后按 7 取整即以周一为界
+        long firstWeek = Math.floorDiv(firstDay + 3, 7);
+        long lastWeek = Math.floorDiv(lastDay() + 3, 7);
+        int n = (int) (lastWeek - firstWeek + 1);
+        long[] starts = new long[n];
+        double[] totals = new double[n];
+        for (int k = 0; k < n; k++) starts[k] = (firstWeek + k) * 7 - 3;
+        for (int i = 0; i < values.length; i++) {
+            totals[(int) (Math.floorDiv(firstDay + i + 3, 7) - firstWeek)] += values[i];
+        }
+        return new Resampled(starts, totals);
+    }
+
+    // 按自然月合计，startDays 为每月 1 日；每个月只换算一次日期，逐日累加不创建对象
+    public Resampled monthly() {
+        if (values.length == 0) return Resampled.EMPTY;
+        LocalDate first = LocalDate.ofEpochDay(firstDay).withDayOfMonth(1);
+        LocalDate last = LocalDate.ofEpochDay(lastDay()).withDayOfMonth(1);
+        int n = (last.getYear() - first.getYear()) * 12 + last.getMonthValue() - first.getMonthValue() + 1;
+        long[] starts = new long[n];
+        double[] totals = new double[n];
+        LocalDate month = first;
+        for (int k = 0; k < n; k++) {
+            starts[k] = month.toEpochDay();
+            month = month.plusMonths(1);
+        }
+        int k = 0;
+        for (int i = 0; i < values.length; i++) {
+            long day = firstDay + i;
+            while (k + 1 < n && day >= starts[k + 1]) k++;
+            totals[k] += values[i];
+        }
+        return new Resampled(starts, totals);
+    }
+
+    // 重采样结果：totals[k] 为从 startDays[k] 开始的一周 / 一个月的合计
+    public static final class Resampled {
+        static final Resampled EMPTY = new Resampled(new long[0], new double[0]);
+
+        public final long[] startDays;
+        public final double[] totals;
+
+        Resampled(long[] startDays, double[] totals) {
+            this.startDays = startDays;
+            this.totals = totals;
+        }
+
+        public int size() {
+            return totals.length;
+        }
+    }
+}
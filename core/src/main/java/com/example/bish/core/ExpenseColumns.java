@@ -0,0 +1,97 @@
+package com.example.bish.core;
+
+import java.util.Arrays;
+
+// 分析用的列式投影：只有 date、amountCents、categoryId 三列，一次遍历填进基本类型数组（数据库侧见 ExpenseDao.loadColumns）
+// 数组在多次加载之间复用，百万行扫描只有这几个数组的分配，不再为每行创建 Expense 和 note 字符串
+// 非线程安全，调用方负责串行使用
+public final class ExpenseColumns {
+
+    public long[] dates;
+    public long[] amountCents;
+    public int[] categoryIds;
+    public int size;
+
+    public ExpenseColumns() {
+        this(1024);
+    }
+
+    public ExpenseColumns(int capacity) {
+        dates = new long[capacity];
+        amountCents = new long[capacity];
+        categoryIds = new int[capacity];
+    }
+
+    // 清空后重新 add，数组保留复用
+    public ExpenseColumns clear() {
+        size = 0;
+        return this;
+    }
+
+    // 追加一行；数组满时容量翻倍
+    public void add(long date, long cents, int categoryId) {
+        if (size == dates.length) grow();
+        dates[size] = date;
+        amountCents[size] = cents;
+        categoryIds[size] = categoryId;
+        size++;
+    }
+
+    // 按类别合计（分），结果以 categoryId 为下标；out 不够长时重新分配，返回实际使用的数组
+    public long[] totalsByCategory(long[] out) {
+        int maxId = -1;
+        for (int i = 0; i < size; i++) maxId = Math.max(maxId, categoryIds[i]);
+        if (out == null || out.length <= maxId) {
+            out = new long[maxId + 1];
+        } else {
+            Arrays.fill(out, 0);
+        }
+        for (int i = 0; i < size; i++) out[categoryIds[i]] += amountCents[i];
+        return out;
+    }
+
+    // 每个类别一条从 firstDay 起共 days 天的日支出序列（元），没有支出的日子为 0
+    public CategorySeries dailyByCategory(LocalDays localDays, long firstDay, int days) {
+        int maxId = -1;
+        for (int i = 0; i < size; i++) maxId = Math.max(maxId, categoryIds[i]);
+        // categoryId -> 序列下标，+1 偏移，0 表示尚未出现
+        int[] slot = new int[maxId + 1];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (slot[categoryIds[i]] == 0) slot[categoryIds[i]] = ++count;
+        }
+        int[] ids = new int[count];
+        double[][] series = new double[count][days];
+        for (int id = 0; id <= maxId; id++) {
+            if (slot[id] != 0) ids[slot[id] - 1] = id;
+        }
+        for (int i = 0; i < size; i++) {
+            long index = localDays.epochDay(dates[i]) - firstDay;
+            if (index < 0 || index >= days) continue;
+            series[slot[categoryIds[i]] - 1][(int) index] += Money.toYuan(amountCents[i]);
+        }
+        return new CategorySeries(ids, series);
+    }
+
+    private void grow() {
+        int capacity = dates.length * 2;
+        dates = Arrays.copyOf(dates, capacity);
+        amountCents = Arrays.copyOf(amountCents, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+    }
+
+    // 按类别拆分的日序列，series[k] 对应 categoryIds[k]
+    public static final class CategorySeries {
+        public final int[] categoryIds;
+        public final double[][] series;
+
+        CategorySeries(int[] categoryIds, double[][] series) {
+            this.categoryIds = categoryIds;
+            this.series = series;
+        }
+
+        public int size() {
+            return categoryIds.length;
+        }
+    }
+}
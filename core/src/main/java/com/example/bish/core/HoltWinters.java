@@ -0,0 +1,99 @@
+package com.example.bish.core;
+
+// 加法 Holt-Winters（阻尼趋势 + 周季节性），按天在线更新，每次 update 为 O(1)
+// 状态只有水平、趋势和 7 个季节分量，可以随数据一起持久化
+public final class HoltWinters {
+    
+    public static final int PERIOD = 7;
+    
+    private static final double ALPHA = 0.3;   // 水平平滑系数
+    private static final double BETA = 0.05;   // 趋势平滑系数
+    private static final double GAMMA = 0.2;   // 季节平滑系数
+    private static final double PHI = 0.95;    // 趋势阻尼，避免 30 天外推发散
+    
+    private double level;
+    private double trend;
+    private final double[] season = new double[PERIOD];
+    private long lastDay = Long.MIN_VALUE;     // 最后一次 update 的 epoch day
+    private int days;                          // 已更新的天数
+    
+    // 从持久化的状态恢复（见 BaselineForecaster），season 不足 PERIOD 个时其余分量为 0
+    public void restore(double level, double trend, double[] season, long lastDay, int days) {
+        this.level = level;
+        this.trend = trend;
+        System.arraycopy(season, 0, this.season, 0, Math.min(season.length, PERIOD));
+        this.lastDay = lastDay;
+        this.days = days;
+    }
+    
+    public double getLevel() {
+        return level;
+    }
+    
+    public double getTrend() {
+        return trend;
+    }
+    
+    // 季节分量，下标为 floorMod(epochDay, PERIOD)
+    public double getSeason(int i) {
+        return season[i];
+    }
+    
+    public boolean isEmpty() {
+        return days == 0;
+    }
+    
+    public long getLastDay() {
+        return lastDay;
+    }
+    
+    public int getDays() {
+        return days;
+    }
+    
+    // 依次输入每一天的总支出（day 必须递增，中间缺的天按 0 补齐）
+    public void update(long day, double value) {
+        if (days > 0) {
+            for (long d = lastDay + 1; d < day; d++) step(d, 0);
+        }
+        step(day, value);
+    }
+    
+    private void step(long day, double value) {
+        int i = seasonIndex(day);
+        if (days == 0) {
+            level = value;
+            trend = 0;
+        } else {
+            double s = season[i];
+            double prevLevel = level;
+            level = ALPHA * (value - s) + (1 - ALPHA) * (prevLevel + PHI * trend);
+            trend = BETA * (level - prevLevel) + (1 - BETA) * PHI * trend;
+            season[i] = GAMMA * (value - level) + (1 - GAMMA) * s;
+        }
+        lastDay = day;
+        days++;
+    }
+    
+    // lastDay 之后第 h 天（h >= 1）的预测值，不小于 0
+    public double forecast(int h) {
+        if (days == 0) return 0;
+        double damped = 0;
+        double p = PHI;
+        for (int k = 0; k < h; k++) {
+            damped += p;
+            p *= PHI;
+        }
+        return Math.max(0, level + damped * trend + season[seasonIndex(lastDay + h)]);
+    }
+    
+    // 从 lastDay 之后第 fromH 天开始，连续预测 out.length 天
+    public void forecast(int fromH, float[] out) {
+        for (int k = 0; k < out.length; k++) out[k] = (float) forecast(fromH + k);
+    }
+    
+    // 按星期对齐季节分量（epoch day 0 为周四）
+    private static int seasonIndex(long day) {
+        return (int) Math.floorMod(day, (long) PERIOD);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bish.core;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+// 毫秒时间戳 -> 本地时区 epoch day（与 LocalDate.toEpochDay() 及 SQL 里的 localtime 换算一致）
+// 缓存当前 UTC 偏移的有效区间，按时间顺序换算时只在夏令时切换处重新查时区规则，逐行换算不创建对象
+// 非线程安全，每个线程各用一个
+public final class LocalDays {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private long validFrom = Long.MAX_VALUE;
+    private long validTo = Long.MIN_VALUE;
+    private long offsetMillis;
+
+    public LocalDays(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+    }
+
+    public static LocalDays systemDefault() {
+        return new LocalDays(ZoneId.systemDefault());
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public long epochDay(long millis) {
+        if (millis < validFrom || millis >= validTo) locate(millis);
+        return Math.floorDiv(millis + offsetMillis, MILLIS_PER_DAY);
+    }
+
+    // 当天本地零点的毫秒时间戳
+    public long startOfDay(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    public long today() {
+        return epochDay(System.currentTimeMillis());
+    }
+
+    private void locate(long millis) {
+        Instant instant = Instant.ofEpochMilli(millis);
+        offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusMillis(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        validFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000;
+        validTo = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bish.core;
+
+// 模型训练时的 MinMax 归一化：x' = (x - min) / scale，参数来自 assets 里的 scaler_min.txt / scaler_scale.txt
+public final class MinMaxScaler {
+
+    private final float min;
+    private final float scale;
+
+    public MinMaxScaler(float min, float scale) {
+        if (scale == 0 || Float.isNaN(scale)) {
+            throw new IllegalArgumentException("scale 不能为 0: " + scale);
+        }
+        this.min = min;
+        this.scale = scale;
+    }
+
+    public float normalize(double value) {
+        return (float) ((value - min) / scale);
+    }
+
+    public float denormalize(float value) {
+        return value * scale + min;
+    }
+
+    // 0 元对应的归一化值；支出不会为负，滚动预测回填窗口前截断到这里
+    public float floor() {
+        return -min / scale;
+    }
+
+    // 整段归一化写入 out 的 [offset, offset + values.length)
+    public void normalize(double[] values, float[] out, int offset) {
+        for (int i = 0; i < values.length; i++) out[offset + i] = (float) ((values[i] - min) / scale);
+    }
+}
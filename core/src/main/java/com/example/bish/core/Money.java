@@ -0,0 +1,44 @@
+package com.example.bish.core;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// 金额统一以“分”为单位的 long 存储和累加，只在输入输出时与“元”的文本互转
+public final class Money {
+    
+    private Money() {
+    }
+    
+    // "25.8" -> 2580；按十进制解析，不经过 double，超过两位小数四舍五入
+    public static long parseCents(String yuan) {
+        try {
+            return new BigDecimal(yuan.trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("金额超出范围: " + yuan);
+        }
+    }
+    
+    // 2580 -> "25.80"
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(16);
+        append(sb, cents);
+        return sb.toString();
+    }
+    
+    // 保留两位小数，避免 Double.toString 的科学计数法
+    public static void append(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        sb.append(cents / 100).append('.');
+        int rest = (int) (cents % 100);
+        if (rest < 10) sb.append('0');
+        sb.append(rest);
+    }
+    
+    // 仅用于模型输入和图表绘制这类本身就是浮点的场景
+    public static double toYuan(long cents) {
+        return cents / 100.0;
+    }
+}
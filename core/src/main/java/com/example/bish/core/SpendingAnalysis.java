@@ -0,0 +1,65 @@
+package com.example.bish.core;
+
+import java.util.Locale;
+
+// 预测页的文字部分：近 7 天均值与明日预测的对比和建议，以及未来 7 / 30 天的展望
+public final class SpendingAnalysis {
+
+    public static final int WEEK = 7;
+    public static final int MONTH = 30;
+
+    private SpendingAnalysis() {
+    }
+
+    // daily 为按时间升序的连续日支出（空白日为 0），最近 7 天取末尾
+    public static String analysis(double[] daily, float prediction) {
+        StringBuilder sb = new StringBuilder();
+
+        double recent7Avg = recentAverage(daily, WEEK);
+
+        // 计算趋势
+        double trend = prediction - recent7Avg;
+        String trendText = trend > 0 ? "上升" : (trend < 0 ? "下降" : "持平");
+
+        sb.append(String.format(Locale.getDefault(),
+            "最近 7 天平均：¥%.2f\n", recent7Avg));
+        sb.append(String.format(Locale.getDefault(),
+            "预测趋势：%s %.2f%%\n", trendText, Math.abs(trend) / (recent7Avg > 0 ? recent7Avg : 1) * 100));
+
+        sb.append('\n').append(advice(prediction, recent7Avg));
+        return sb.toString();
+    }
+
+    // 高于近期均值 20% 提醒控制，低于 20% 鼓励保持，其余视为持平
+    public static String advice(double prediction, double recentAverage) {
+        if (prediction > recentAverage * 1.2) {
+            return "⚠️ 预测支出明显高于近期平均，请注意控制消费！";
+        } else if (prediction < recentAverage * 0.8) {
+            return "✅ 预测支出低于近期平均，继续保持理性消费！";
+        }
+        return "📊 预测支出与近期平均相近，保持当前消费习惯即可。";
+    }
+
+    // 末尾 days 个值的均值，不足 days 个时按实际个数
+    public static double recentAverage(double[] daily, int days) {
+        double sum = 0;
+        int count = 0;
+        for (int i = Math.max(0, daily.length - days); i < daily.length; i++) {
+            sum += daily[i];
+            count++;
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    // 未来 7 天和 30 天的合计与日均
+    public static String outlook(float[] forecast) {
+        double week = 0;
+        double month = 0;
+        for (int i = 0; i < forecast.length; i++) {
+            if (i < WEEK) week += forecast[i];
+            month += forecast[i];
+        }
+        return String.format(Locale.getDefault(), "未来 %d 天：¥%.2f（日均 ¥%.2f）\n未来 %d 天：¥%.2f（日均 ¥%.2f）",
+                WEEK, week, week / WEEK, MONTH, month, month / MONTH);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bish.core;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DailySeriesTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void fromDailyTotals_zeroFillsMissingDays() {
+        long first = LocalDate.of(2024, 3, 1).toEpochDay();
+        long[] days = {first - 1, first, first + 3};
+        long[] cents = {999, 1250, 800};
+        DailySeries s = DailySeries.fromDailyTotals(days, cents, days.length, first, first + 4);
+
+        assertEquals(5, s.length());
+        assertArrayEquals(new double[]{12.5, 0, 0, 8, 0}, s.window(first + 4, new double[5]), EPS);
+        // 窗口超出序列的部分补 0
+        assertArrayEquals(new double[]{8, 0, 0, 0}, s.window(first + 6, new double[4]), EPS);
+    }
+
+    @Test
+    public void bucket_usesLocalDayAcrossDstChange() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        // 2024-03-10 凌晨切换夏令时，当天只有 23 小时
+        long[] dates = {
+                ZonedDateTime.of(2024, 3, 9, 23, 59, 0, 0, zone).toInstant().toEpochMilli(),
+                ZonedDateTime.of(2024, 3, 10, 0, 0, 0, 0, zone).toInstant().toEpochMilli(),
+                ZonedDateTime.of(2024, 3, 10, 23, 30, 0, 0, zone).toInstant().toEpochMilli(),
+                ZonedDateTime.of(2024, 3, 11, 0, 30, 0, 0, zone).toInstant().toEpochMilli(),
+        };
+        long[] cents = {100, 200, 300, 400};
+        long first = LocalDate.of(2024, 3, 9).toEpochDay();
+        DailySeries s = DailySeries.bucket(dates, cents, dates.length, new LocalDays(zone), first, first + 2);
+
+        assertArrayEquals(new double[]{1, 5, 4}, s.window(first + 2, new double[3]), EPS);
+    }
+
+    @Test
+    public void rollingMean_countsEmptyDaysAsZero() {
+        long first = 0;
+        long[] days = {0, 1, 6, 7};
+        long[] cents = {700, 700, 700, 1400};
+        DailySeries s = DailySeries.fromDailyTotals(days, cents, days.length, first, 7);
+
+        DailySeries mean = s.rollingMean(7);
+        assertEquals(3.0, mean.get(6), EPS);
+        assertEquals(4.0, mean.get(7), EPS);
+        assertEquals(s.mean(7, 7), mean.get(7), EPS);
+    }
+
+    @Test
+    public void weekly_startsOnMonday() {
+        long first = LocalDate.of(2024, 4, 27).toEpochDay();   // 周六
+        long last = LocalDate.of(2024, 5, 6).toEpochDay();     // 周一
+        long[] days = new long[(int) (last - first + 1)];
+        long[] cents = new long[days.length];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = first + i;
+            cents[i] = 100;
+        }
+        DailySeries.Resampled weeks = DailySeries.fromDailyTotals(days, cents, days.length, first, last).weekly();
+
+        assertEquals(3, weeks.size());
+        for (long start : weeks.startDays) {
+            assertEquals(DayOfWeek.MONDAY, LocalDate.ofEpochDay(start).getDayOfWeek());
+        }
+        assertArrayEquals(new double[]{2, 7, 1}, weeks.totals, EPS);
+    }
+
+    @Test
+    public void monthly_splitsOnCalendarMonths() {
+        long first = LocalDate.of(2024, 1, 31).toEpochDay();
+        long last = LocalDate.of(2024, 3, 1).toEpochDay();
+        long[] days = {first, LocalDate.of(2024, 2, 29).toEpochDay(), last};
+        long[] cents = {100, 200, 300};
+        DailySeries.Resampled months = DailySeries.fromDailyTotals(days, cents, days.length, first, last).monthly();
+
+        assertArrayEquals(new long[]{
+                LocalDate.of(2024, 1, 1).toEpochDay(),
+                LocalDate.of(2024, 2, 1).toEpochDay(),
+                LocalDate.of(2024, 3, 1).toEpochDay()}, months.startDays);
+        assertArrayEquals(new double[]{1, 2, 3}, months.totals, EPS);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bish.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpendingAnalysisTest {
+
+    @Test
+    public void recentAverage_usesLastSevenDays() {
+        double[] daily = new double[30];
+        for (int i = 23; i < 30; i++) daily[i] = 10;
+        daily[0] = 1000;
+        assertEquals(10.0, SpendingAnalysis.recentAverage(daily, 7), 1e-9);
+        assertEquals(15.0, SpendingAnalysis.recentAverage(new double[]{10, 20}, 7), 1e-9);
+    }
+
+    @Test
+    public void advice_thresholdsAtTwentyPercent() {
+        assertTrue(SpendingAnalysis.advice(121, 100).startsWith("⚠️"));
+        assertTrue(SpendingAnalysis.advice(79, 100).startsWith("✅"));
+        assertTrue(SpendingAnalysis.advice(120, 100).startsWith("📊"));
+        assertTrue(SpendingAnalysis.advice(80, 100).startsWith("📊"));
+    }
+}